@@ -0,0 +1,189 @@
+package edu.vanderbilt.cloudcomputing.team13.client;
+
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeRaster;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * The drawing accumulated in an off-screen framebuffer texture. Ink is only ever added, so each frame
+ * rasterises just the strokes that arrived since the previous frame into the texture and then composites
+ * the texture with one quad. A cleared canvas or a resized window rebuilds the texture from the stroke buffer.
+ *
+ * A keyframe received from the server (the compacted drawing of a round we joined late) lies under the strokes.
+ *
+ * Falls back to drawing every stroke each frame when the context has no framebuffer objects (before GL 3.0).
+ * Must be created and used on the thread owning the GL context.
+ */
+public class CanvasLayer {
+    private final StrokeRenderer strokeRenderer;
+    // the coordinate space the board is laid out in
+    private final int windowWidth;
+    private final int windowHeight;
+
+    private boolean isSupported = false;
+    private int fbo = 0;
+    private int texture = 0;
+    // size of the texture, the framebuffer size of the window
+    private int width = 0;
+    private int height = 0;
+    // vertices already in the texture
+    private int rasterised = 0;
+
+    // set by any thread, uploaded by the render thread
+    private volatile StrokeRaster pendingKeyframe = null;
+    private volatile boolean isKeyframeChanged = false;
+    private int keyframeTexture = 0;
+    private int keyframeWidth = 0;
+    private int keyframeHeight = 0;
+
+    public CanvasLayer(StrokeRenderer strokeRenderer, int windowWidth, int windowHeight){
+        this.strokeRenderer = strokeRenderer;
+        this.windowWidth = windowWidth;
+        this.windowHeight = windowHeight;
+    }
+
+    public void init(int framebufferWidth, int framebufferHeight){
+        strokeRenderer.init();
+        isSupported = GL.getCapabilities().OpenGL30;
+        if(!isSupported) return;
+        fbo = glGenFramebuffers();
+        texture = glGenTextures();
+        resize(framebufferWidth, framebufferHeight);
+    }
+
+    // reallocate the texture for a new window size, it is refilled on the next render
+    public void resize(int framebufferWidth, int framebufferHeight){
+        if(!isSupported || framebufferWidth <= 0 || framebufferHeight <= 0) return;
+        width = framebufferWidth;
+        height = framebufferHeight;
+        glBindTexture(GL_TEXTURE_2D, texture);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, (ByteBuffer) null);
+        glBindTexture(GL_TEXTURE_2D, 0);
+
+        glBindFramebuffer(GL_FRAMEBUFFER, fbo);
+        glFramebufferTexture2D(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_TEXTURE_2D, texture, 0);
+        if(glCheckFramebufferStatus(GL_FRAMEBUFFER) != GL_FRAMEBUFFER_COMPLETE){
+            // keep drawing straight to the window
+            isSupported = false;
+        }
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        rasterised = -1;
+    }
+
+    // null removes the keyframe
+    public void setKeyframe(StrokeRaster keyframe){
+        pendingKeyframe = keyframe;
+        isKeyframeChanged = true;
+    }
+
+    public void render(){
+        boolean isCleared = strokeRenderer.sync();
+        renderKeyframe();
+        if(!isSupported){
+            strokeRenderer.draw(0, strokeRenderer.getUploadedVertices(), windowHeight);
+            return;
+        }
+
+        int uploaded = strokeRenderer.getUploadedVertices();
+        if(isCleared || rasterised < 0 || rasterised > uploaded){
+            rasterised = 0;
+            glBindFramebuffer(GL_FRAMEBUFFER, fbo);
+            glClearColor(0, 0, 0, 0);
+            glClear(GL_COLOR_BUFFER_BIT);
+            // back to the board's white
+            glClearColor(1f, 1f, 1f, 1f);
+            glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        }
+        if(uploaded > rasterised){
+            glBindFramebuffer(GL_FRAMEBUFFER, fbo);
+            glViewport(0, 0, width, height);
+            strokeRenderer.draw(rasterised, uploaded, windowHeight);
+            glBindFramebuffer(GL_FRAMEBUFFER, 0);
+            glViewport(0, 0, width, height);
+            rasterised = uploaded;
+        }
+        composite();
+    }
+
+    public void delete(){
+        strokeRenderer.delete();
+        if(fbo != 0) glDeleteFramebuffers(fbo);
+        if(texture != 0) glDeleteTextures(texture);
+        if(keyframeTexture != 0) glDeleteTextures(keyframeTexture);
+        fbo = 0;
+        texture = 0;
+        keyframeTexture = 0;
+    }
+
+    private void renderKeyframe(){
+        if(isKeyframeChanged){
+            isKeyframeChanged = false;
+            uploadKeyframe(pendingKeyframe);
+        }
+        if(keyframeTexture == 0) return;
+        // rows run top to bottom, like window coordinates
+        glEnable(GL_TEXTURE_2D);
+        glEnable(GL_BLEND);
+        glBlendFunc(GL_ONE, GL_ONE_MINUS_SRC_ALPHA);
+        glBindTexture(GL_TEXTURE_2D, keyframeTexture);
+        glColor3f(1, 1, 1);
+        glBegin(GL_QUADS);
+        glTexCoord2f(0, 1); glVertex2f(0, windowHeight - keyframeHeight);
+        glTexCoord2f(1, 1); glVertex2f(keyframeWidth, windowHeight - keyframeHeight);
+        glTexCoord2f(1, 0); glVertex2f(keyframeWidth, windowHeight);
+        glTexCoord2f(0, 0); glVertex2f(0, windowHeight);
+        glEnd();
+        glBindTexture(GL_TEXTURE_2D, 0);
+        glDisable(GL_BLEND);
+        glDisable(GL_TEXTURE_2D);
+    }
+
+    // ink becomes opaque black, the rest transparent
+    private void uploadKeyframe(StrokeRaster keyframe){
+        if(keyframe == null){
+            if(keyframeTexture != 0) glDeleteTextures(keyframeTexture);
+            keyframeTexture = 0;
+            return;
+        }
+        keyframeWidth = keyframe.getWidth();
+        keyframeHeight = keyframe.getHeight();
+        ByteBuffer pixels = BufferUtils.createByteBuffer(keyframeWidth * keyframeHeight * 4);
+        for(int y = 0; y < keyframeHeight; y++){
+            for(int x = 0; x < keyframeWidth; x++){
+                pixels.put((byte) 0).put((byte) 0).put((byte) 0).put(keyframe.isSet(x, y) ? (byte) 0xff : 0);
+            }
+        }
+        pixels.flip();
+        if(keyframeTexture == 0) keyframeTexture = glGenTextures();
+        glBindTexture(GL_TEXTURE_2D, keyframeTexture);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, keyframeWidth, keyframeHeight, 0, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+        glBindTexture(GL_TEXTURE_2D, 0);
+    }
+
+    // the texture covers the whole board, its ink is opaque and the rest transparent
+    private void composite(){
+        glEnable(GL_TEXTURE_2D);
+        glEnable(GL_BLEND);
+        glBlendFunc(GL_ONE, GL_ONE_MINUS_SRC_ALPHA);
+        glBindTexture(GL_TEXTURE_2D, texture);
+        glColor3f(1, 1, 1);
+        glBegin(GL_QUADS);
+        glTexCoord2f(0, 0); glVertex2f(0, 0);
+        glTexCoord2f(1, 0); glVertex2f(windowWidth, 0);
+        glTexCoord2f(1, 1); glVertex2f(windowWidth, windowHeight);
+        glTexCoord2f(0, 1); glVertex2f(0, windowHeight);
+        glEnd();
+        glBindTexture(GL_TEXTURE_2D, 0);
+        glDisable(GL_BLEND);
+        glDisable(GL_TEXTURE_2D);
+    }
+}
@@ -0,0 +1,195 @@
+package edu.vanderbilt.cloudcomputing.team13.client;
+
+import edu.vanderbilt.cloudcomputing.team13.util.CurveFitter;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import edu.vanderbilt.cloudcomputing.team13.util.RoundReader;
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeDecoder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bandwidth and visual error of curve fitting, runnable without a benchmark harness. The strokes of a recording
+ * (see RoundRecorder), or without one 40 generated loops of 150 samples, go through a StrokeBatcher once with raw
+ * point runs and once for every curve error. The frames are rebuilt the way receivers do, and every sample is
+ * measured against the rebuilt line of its stroke. Each run reports bytes on the wire, frame headers included, and
+ * the mean and max distance. Control points are rounded to whole pixels, so a max distance over the curve error
+ * plus one pixel fails the check and exits with status 1.
+ *
+ *   CurveBench [recording or -] [curveError ...]
+ */
+public class CurveBench {
+    private static final Logger logger = LogManager.getLogger(CurveBench.class.getName());
+
+    // the strokes as x, y pairs
+    private final List<double[]> strokes = new ArrayList<>();
+
+    private void addStroke(List<Double> coords){
+        if(coords.isEmpty()) return;
+        double[] stroke = new double[coords.size()];
+        for(int i = 0; i < stroke.length; i++){
+            stroke[i] = coords.get(i);
+        }
+        strokes.add(stroke);
+        coords.clear();
+    }
+
+    private void read(File recording) throws IOException{
+        List<Double> coords = new ArrayList<>();
+        try(RoundReader reader = new RoundReader(recording)){
+            while(reader.next()){
+                if(reader.isSeparator()){
+                    addStroke(coords);
+                }else{
+                    coords.add((double) reader.x());
+                    coords.add((double) reader.y());
+                }
+            }
+        }
+        addStroke(coords);
+    }
+
+    // wobbly loops and arcs, about as fast as a hand moves the mouse
+    private void generate(){
+        Random random = new Random(3);
+        List<Double> coords = new ArrayList<>();
+        for(int stroke = 0; stroke < 40; stroke++){
+            double cx = 100 + random.nextInt(500);
+            double cy = 100 + random.nextInt(300);
+            double radius = 30 + random.nextInt(80);
+            double phase = random.nextDouble() * 6;
+            for(int i = 0; i < 150; i++){
+                double t = phase + i * 0.03;
+                coords.add((double) Math.round(cx + radius * Math.cos(t) + 8 * Math.sin(5 * t)));
+                coords.add((double) Math.round(cy + radius * Math.sin(t * 1.3)));
+            }
+            addStroke(coords);
+        }
+    }
+
+    private int sampleCount(){
+        int samples = 0;
+        for(double[] stroke : strokes){
+            samples += stroke.length / 2;
+        }
+        return samples;
+    }
+
+    /**
+     * send all strokes through a batcher with this curve error, then rebuild and measure them; returns
+     * {bytes, frames, mean distance, max distance}
+     */
+    private double[] run(double curveError) throws InterruptedException{
+        List<byte[]> frames = Collections.synchronizedList(new ArrayList<>());
+        // only full batches and separators flush, timing does not matter here
+        StrokeBatcher batcher = new StrokeBatcher(0, frames::add, StrokeBatcher.DEFAULT_MAX_POINTS, Long.MAX_VALUE / 2,
+                curveError);
+        for(double[] stroke : strokes){
+            for(int i = 0; i < stroke.length; i += 2){
+                batcher.addPoint(stroke[i], stroke[i + 1]);
+            }
+            batcher.addSeparator();
+        }
+        if(!batcher.stopAndWait(10000)){
+            throw new IllegalStateException("batcher did not stop");
+        }
+
+        long bytes = 0;
+        List<List<double[]>> rebuilt = new ArrayList<>();
+        rebuilt.add(new ArrayList<>());
+        for(byte[] frame : frames){
+            bytes += frame.length;
+            boolean isCurves = MessageCodec.opcode(frame) == MessageCodec.CLI_NEW_CURVES;
+            double[] ctrl = new double[MessageCodec.pointCount(frame) * 2];
+            int ctrlNum = 0;
+            StrokeDecoder decoder = new StrokeDecoder().reset(frame);
+            while(decoder.next()){
+                List<double[]> line = rebuilt.get(rebuilt.size() - 1);
+                if(decoder.isSeparator()){
+                    CurveFitter.sample(ctrl, ctrlNum, (x, y) -> line.add(new double[]{x, y}));
+                    ctrlNum = 0;
+                    rebuilt.add(new ArrayList<>());
+                }else if(isCurves){
+                    ctrl[ctrlNum * 2] = decoder.x();
+                    ctrl[ctrlNum * 2 + 1] = decoder.y();
+                    ctrlNum++;
+                }else{
+                    line.add(new double[]{decoder.x(), decoder.y()});
+                }
+            }
+            List<double[]> line = rebuilt.get(rebuilt.size() - 1);
+            CurveFitter.sample(ctrl, ctrlNum, (x, y) -> line.add(new double[]{x, y}));
+        }
+
+        double sum = 0;
+        double max = 0;
+        for(int s = 0; s < strokes.size(); s++){
+            double[] stroke = strokes.get(s);
+            List<double[]> line = s < rebuilt.size() ? rebuilt.get(s) : Collections.<double[]>emptyList();
+            for(int i = 0; i < stroke.length; i += 2){
+                double distance = distance(stroke[i], stroke[i + 1], line);
+                sum += distance;
+                max = Math.max(max, distance);
+            }
+        }
+        return new double[]{bytes, frames.size(), sum / sampleCount(), max};
+    }
+
+    // from the point to the nearest segment of the line
+    private static double distance(double x, double y, List<double[]> line){
+        if(line.isEmpty()) return Double.POSITIVE_INFINITY;
+        double best = Math.hypot(x - line.get(0)[0], y - line.get(0)[1]);
+        for(int i = 1; i < line.size(); i++){
+            double[] a = line.get(i - 1);
+            double[] b = line.get(i);
+            double dx = b[0] - a[0];
+            double dy = b[1] - a[1];
+            double length = dx * dx + dy * dy;
+            double t = length == 0 ? 0 : Math.max(0, Math.min(1, ((x - a[0]) * dx + (y - a[1]) * dy) / length));
+            best = Math.min(best, Math.hypot(x - a[0] - t * dx, y - a[1] - t * dy));
+        }
+        return best;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException{
+        CurveBench bench = new CurveBench();
+        if(args.length > 0 && !args[0].equals("-")){
+            bench.read(new File(args[0]));
+        }else{
+            bench.generate();
+        }
+        double[] curveErrors = {1, 2, 4};
+        if(args.length > 1){
+            curveErrors = new double[args.length - 1];
+            for(int i = 1; i < args.length; i++){
+                curveErrors[i - 1] = Double.parseDouble(args[i]);
+            }
+        }
+        logger.info("{} strokes, {} samples", bench.strokes.size(), bench.sampleCount());
+
+        int failures = 0;
+        double[] raw = bench.run(0);
+        logger.info("raw points: {} bytes in {} frames", (long) raw[0], (long) raw[1]);
+        for(double curveError : curveErrors){
+            double[] curves = bench.run(curveError);
+            logger.info("curve error {} px: {} bytes in {} frames, {}% of raw, distance mean {} px, max {} px",
+                    curveError, (long) curves[0], (long) curves[1], Math.round(curves[0] * 100 / raw[0]),
+                    String.format("%.2f", curves[2]), String.format("%.2f", curves[3]));
+            if(curves[3] > curveError + 1){
+                logger.error("failed: max distance {} px over curve error {} px", curves[3], curveError);
+                failures++;
+            }
+        }
+        if(raw[3] > 0.5){
+            logger.error("failed: raw points rebuilt {} px off", raw[3]);
+            failures++;
+        }
+        System.exit(failures > 0 ? 1 : 0);
+    }
+}
@@ -6,15 +6,23 @@ package edu.vanderbilt.cloudcomputing.team13.client;
 import java.awt.*;
 import java.io.InputStream;
 import java.io.File;
+import java.io.IOException;
 import java.nio.DoubleBuffer;
 import java.nio.IntBuffer;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.sun.xml.internal.bind.v2.TODO;
+import edu.vanderbilt.cloudcomputing.team13.util.CanvasSpec;
 import edu.vanderbilt.cloudcomputing.team13.util.GraphicUtils;
 import edu.vanderbilt.cloudcomputing.team13.util.Player;
+import edu.vanderbilt.cloudcomputing.team13.util.PlayerRegistry;
+import edu.vanderbilt.cloudcomputing.team13.util.RoundRecorder;
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeRaster;
+import edu.vanderbilt.cloudcomputing.team13.util.TextRenderer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.glfw.GLFWVidMode;
@@ -29,6 +37,7 @@ import static org.lwjgl.system.MemoryUtil.NULL;
 
 
 public class GameBoard {
+    private static final Logger logger = LogManager.getLogger(GameBoard.class.getName());
     // use this bi-directional interface to communicate with client
     GraphicInterface graphicInterface;
 
@@ -36,9 +45,25 @@ public class GameBoard {
     private GameState gameState = null;
 
     // The window handle
-    private long window;
-    private int windowWidth = 800;
-    private int windowHeight = 600;
+    private volatile long window = NULL;
+    private int windowWidth = CanvasSpec.WIDTH;
+    private int windowHeight = CanvasSpec.HEIGHT;
+    // the window in real pixels, the board is stretched over it
+    private int framebufferWidth = 0;
+    private int framebufferHeight = 0;
+    private volatile boolean isResized = false;
+
+    // a frame is rendered only when something changed, see requestRedraw
+    private final AtomicBoolean isDirty = new AtomicBoolean(true);
+    private volatile boolean isFocused = true;
+    private volatile boolean isIconified = false;
+    private long lastFrameNanos = 0;
+    // released once the rendering loop runs, or the board is gone
+    private final CountDownLatch loopStarted = new CountDownLatch(1);
+    // longest wait for events when nothing is dirty, in seconds
+    private static final double IDLE_WAIT = 1.0;
+    // frame interval while another window has the focus, in nanoseconds
+    private static final long UNFOCUSED_FRAME_NANOS = 100_000_000L;
 
     // player display frame center, player 0, centerY -> playerFrameCenter[0][1]
     private double[][] playerFrameCenter = null;
@@ -51,15 +76,21 @@ public class GameBoard {
     // isMouseClicked
     private boolean isMouseClicked = false;
 
-    private double smoothThreshold = 1;
+    // width of the drawn lines in pixels
+    private double brushWidth = CanvasSpec.BRUSH_WIDTH;
 
-    // a set of points that the player has drawn
-    private List<Double> drawnPoints = new ArrayList<>();
+    // the sampled points that have been drawn, grouped by stroke
+    private StrokeBuffer drawnPoints = new StrokeBuffer();
+    // records what is drawn during a round, null when not recording
+    private volatile RoundRecorder recorder = null;
+    // accumulates drawnPoints in an off-screen texture on the render thread
+    private CanvasLayer canvasLayer = new CanvasLayer(new StrokeRenderer(drawnPoints, brushWidth), windowWidth, windowHeight);
 
     public GameBoard(GraphicInterface graphicInterface, GameState gameState){
         this.graphicInterface = graphicInterface;
         this.gameState = gameState;
         this.playerFrameCenter = new double[gameState.getMAX_PLAYER()][2];
+        gameState.setChangeListener(this::requestRedraw);
 
         //gameState.addPlayer("127.0.0.1", "cathy", "0001");
         //gameState.addPlayer("127.0.0.1", "unays", "0002");
@@ -68,12 +99,17 @@ public class GameBoard {
     public void run() {
         System.out.println("Game Board started!");
 
-        init();
-        loop();
+        try{
+            init();
+            loop();
+        }finally{
+            loopStarted.countDown();
+        }
 
         // Free the window callbacks and destroy the window
         glfwFreeCallbacks(window);
         glfwDestroyWindow(window);
+        window = NULL;
 
         // Terminate GLFW and free the error callback
         glfwTerminate();
@@ -103,6 +139,7 @@ public class GameBoard {
         glfwSetKeyCallback(window, (window, key, scancode, action, mods) -> {
             if ( key == GLFW_KEY_ESCAPE && action == GLFW_RELEASE )
                 glfwSetWindowShouldClose(window, true); // We will detect this in the rendering loop
+            requestRedraw();
         });
 
         // Setup a cursor position callback, it will be called every time the cursor is moved
@@ -120,11 +157,13 @@ public class GameBoard {
             DoubleBuffer posX = BufferUtils.createDoubleBuffer(1);
             DoubleBuffer posY = BufferUtils.createDoubleBuffer(1);
             glfwGetCursorPos(window, posX, posY);
+            requestRedraw();
             // set/cancel ready if clicked ready
             if(button == GLFW_MOUSE_BUTTON_LEFT && action == GLFW_PRESS && withinReadyButtonRegion(posX.get(0), posY.get(0))){
-                boolean readyState = gameState.getPlayerMyself().isReady();
-                gameState.getPlayerMyself().setReady(!readyState);
-                graphicInterface.reportPlayerReady(gameState.getPlayerId(),!readyState);
+                Player myself = gameState.getPlayerMyself();
+                if(myself == null) return;
+                // the ready count is kept by the player stream alone, our state changes with the ServerPlayerReady
+                graphicInterface.reportPlayerReady(gameState.getPlayerId(), !myself.isReady());
                 return;
             }
 
@@ -137,15 +176,34 @@ public class GameBoard {
                 if(button == GLFW_MOUSE_BUTTON_LEFT && action == GLFW_PRESS){
                     isMouseClicked = true;
                     addSeparatorToDrawnList();
-                    reportDrawnPoint(Double.MAX_VALUE, Double.MAX_VALUE);
+                    graphicInterface.reportStrokeSeparator();
                 }else if(button == GLFW_MOUSE_BUTTON_LEFT && action == GLFW_RELEASE){
                     isMouseClicked = false;
                     addSeparatorToDrawnList();
-                    reportDrawnPoint(Double.MAX_VALUE, Double.MAX_VALUE);
+                    graphicInterface.reportStrokeSeparator();
                 }
             }
         });
 
+        // Setup a framebuffer size callback, the canvas is rebuilt at the new size in the rendering loop
+        glfwSetFramebufferSizeCallback(window, (window, width, height) -> {
+            framebufferWidth = width;
+            framebufferHeight = height;
+            isResized = true;
+            requestRedraw();
+        });
+
+        // Setup window state callbacks, an unfocused window renders less often and a minimized one not at all
+        glfwSetWindowFocusCallback(window, (window, focused) -> {
+            isFocused = focused;
+            requestRedraw();
+        });
+        glfwSetWindowIconifyCallback(window, (window, iconified) -> {
+            isIconified = iconified;
+            requestRedraw();
+        });
+        glfwSetWindowRefreshCallback(window, window -> requestRedraw());
+
         // Get the thread stack and push a new frame
         try ( MemoryStack stack = stackPush() ) {
             IntBuffer pWidth = stack.mallocInt(1); // int*
@@ -186,66 +244,118 @@ public class GameBoard {
 
         // Set the clear color
         glClearColor( 1f, 1f, 1f, 1.0f);
-        drawnPoints.clear();
+        // no clearing the drawing here, a snapshot may have arrived while the window was being created
+        try ( MemoryStack stack = stackPush() ) {
+            IntBuffer pWidth = stack.mallocInt(1);
+            IntBuffer pHeight = stack.mallocInt(1);
+            glfwGetFramebufferSize(window, pWidth, pHeight);
+            framebufferWidth = pWidth.get(0);
+            framebufferHeight = pHeight.get(0);
+        }
+        canvasLayer.init(framebufferWidth, framebufferHeight);
         initPlayerFrameCenter();
         initDrawableRegion();
+        loopStarted.countDown();
 
         // Run the rendering loop until the user has attempted to close
         // the window or has pressed the ESCAPE key.
         while ( !glfwWindowShouldClose(window) ) {
-            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT); // clear the framebuffer
+            if(isResized){
+                isResized = false;
+                glViewport(0, 0, framebufferWidth, framebufferHeight);
+                canvasLayer.resize(framebufferWidth, framebufferHeight);
+            }
+
+            // wait for events, a dirty board is left dirty until it is its turn to render
+            double wait = IDLE_WAIT;
+            if(isDirty.get() && !isIconified){
+                long sinceLastFrame = System.nanoTime() - lastFrameNanos;
+                if(isFocused || sinceLastFrame >= UNFOCUSED_FRAME_NANOS){
+                    isDirty.set(false);
+                    renderFrame();
+                    lastFrameNanos = System.nanoTime();
+                }else{
+                    wait = (UNFOCUSED_FRAME_NANOS - sinceLastFrame) / 1e9;
+                }
+            }
+
+            // The callbacks above will only be invoked during this call,
+            // requestRedraw from another thread wakes it up early.
+            glfwWaitEventsTimeout(wait);
+        }
+        canvasLayer.delete();
+        TextRenderer.getInstance().delete();
+    }
 
-            //myFont.drawString(100, 50, "THE LIGHTWEIGHT JAVA GAMES LIBRARY", Color.yellow);
-            //GraphicUtils.drawString("Hello world !", 400,300);
-            glEnable(GL_LINE_WIDTH);
-            glLineWidth(2);
-            renderGameFrame();
-            renderPlayerFrame();
-            renderDrawableRegionFrame();
-            renderDrawing();
-            glDisable(GL_LINE_WIDTH);
+    private void renderFrame(){
+        glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT); // clear the framebuffer
 
-            renderPlayerInfo();
-            if(gameState.isGameOn()) renderGameHelper();
-            else renderReadyButton();
+        // the drawing goes under the rest of the board
+        renderDrawing();
 
-            glfwSwapBuffers(window); // swap the color buffers
+        //myFont.drawString(100, 50, "THE LIGHTWEIGHT JAVA GAMES LIBRARY", Color.yellow);
+        //GraphicUtils.drawString("Hello world !", 400,300);
+        glEnable(GL_LINE_WIDTH);
+        glLineWidth(2);
+        renderGameFrame();
+        renderPlayerFrame();
+        renderDrawableRegionFrame();
+        glDisable(GL_LINE_WIDTH);
 
-            // Poll for window events. The key callback above will only be
-            // invoked during this call.
-            glfwPollEvents();
+        renderPlayerInfo();
+        if(gameState.isGameOn()) renderGameHelper();
+        else renderReadyButton();
 
+        glfwSwapBuffers(window); // swap the color buffers
+    }
+
+    // returns false if the rendering loop is not running yet after this long, can be called from any thread
+    public boolean awaitStarted(long timeoutMillis) throws InterruptedException{
+        return loopStarted.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // mark the board for a new frame and wake the rendering loop, can be called from any thread
+    public void requestRedraw(){
+        if(!isDirty.getAndSet(true) && window != NULL){
+            glfwPostEmptyEvent();
         }
     }
 
     public void addPointToDrawnList(double x, double y){
-        if(drawnPoints.size() >= 2){
-            Double prevX = drawnPoints.get(drawnPoints.size() - 2);
-            Double prevY = drawnPoints.get(drawnPoints.size() - 1);
-            if(prevX != null && prevY != null) addMakeupPoints(prevX, prevY, x, y);
+        drawnPoints.addPoint(x, y);
+        requestRedraw();
+        RoundRecorder recorder = this.recorder;
+        if(recorder != null){
+            try{
+                recorder.addPoint(x, y);
+            }catch (IOException e){
+                stopRecording(recorder, e);
+            }
         }
-        drawnPoints.add(x);
-        drawnPoints.add(y);
     }
 
     public void addSeparatorToDrawnList(){
-        drawnPoints.add(null);
-        drawnPoints.add(null);
+        drawnPoints.endStroke();
+        // closing a stroke adds its end cap
+        requestRedraw();
+        RoundRecorder recorder = this.recorder;
+        if(recorder != null){
+            try{
+                recorder.addSeparator();
+            }catch (IOException e){
+                stopRecording(recorder, e);
+            }
+        }
     }
 
-    private void addMakeupPoints(double prevX, double prevY, double curX, double curY){
-        int num = 0;
-        double dist = Math.sqrt(Math.pow(Math.abs(prevX - curX),2) + Math.pow(Math.abs(prevY - curY), 2));
-        if(dist > smoothThreshold){
-            num = (int) Math.floor(dist / smoothThreshold);
-        }
-        if(num == 0) return;
-        double diffX = (curX - prevX) / num;
-        double diffY = (curY - prevY) / num;
-        for(int i=1; i <= num -1; i++){
-            drawnPoints.add(prevX + diffX * i);
-            drawnPoints.add(prevY + diffY * i);
-        }
+    // everything drawn from now on, local strokes and received ones, goes to the recorder
+    public void setRecorder(RoundRecorder recorder){
+        this.recorder = recorder;
+    }
+
+    private void stopRecording(RoundRecorder failed, IOException e){
+        logger.warn("recording stopped", e);
+        if(recorder == failed) recorder = null;
     }
 
     private void reportDrawnPoint(double x, double y){
@@ -274,23 +384,8 @@ public class GameBoard {
         drawableRegion[3][1] = windowHeight - gameFrameOffset - playerFrameSideWidth;
     }
 
-    private void renderOnePoint(double x, double y){
-        double centerX = x;
-        double centerY = windowHeight - y;
-        int offSet = 2; // size of the point
-        glBegin(GL_QUADS);
-        glVertex2d(centerX - offSet, centerY + offSet);
-        glVertex2d(centerX + offSet, centerY + offSet);
-        glVertex2d(centerX + offSet, centerY - offSet);
-        glVertex2d(centerX - offSet, centerY - offSet);
-        glEnd();
-    }
-
     private void renderDrawing(){
-        for(int i =0; i<drawnPoints.size(); i+=2){
-            if(drawnPoints.get(i) == null) continue;
-            renderOnePoint(drawnPoints.get(i), drawnPoints.get(i+1));
-        }
+        canvasLayer.render();
     }
 
     private void renderSquareLineLoop(double centerX, double centerY, double r){
@@ -347,9 +442,11 @@ public class GameBoard {
     }
 
     private void renderPlayerInfo(){
-        for(Map.Entry<String, Player> entry : gameState.getPlayersMap().entrySet()){
-            Player player = entry.getValue();
-            int pos = player.getPosition();
+        // a player's slot is its position on the board
+        PlayerRegistry players = gameState.getPlayers();
+        for(int pos = 0; pos < players.getCapacity(); pos++){
+            Player player = players.get(pos);
+            if(player == null) continue;
             String name = player.getName();
             int points = player.getPoints();
             boolean ready = player.isReady();
@@ -454,6 +551,13 @@ public class GameBoard {
 
     public void clearCanvas(){
         drawnPoints.clear();
+        canvasLayer.setKeyframe(null);
+        requestRedraw();
+    }
+
+    public void setKeyframe(StrokeRaster keyframe){
+        canvasLayer.setKeyframe(keyframe);
+        requestRedraw();
     }
 
 
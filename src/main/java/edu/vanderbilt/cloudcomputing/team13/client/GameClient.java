@@ -8,301 +8,537 @@ import org.apache.logging.log4j.Logger;
 import org.zeromq.ZMQ;
 import edu.vanderbilt.cloudcomputing.team13.server.GameServer;
 import edu.vanderbilt.cloudcomputing.team13.util.AbstractAction;
+import edu.vanderbilt.cloudcomputing.team13.util.CanvasSpec;
+import edu.vanderbilt.cloudcomputing.team13.util.CurveFitter;
+import edu.vanderbilt.cloudcomputing.team13.util.Dispatcher;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageReader;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageView;
+import edu.vanderbilt.cloudcomputing.team13.util.OrderedExecutor;
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeDecoder;
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeRaster;
+import edu.vanderbilt.cloudcomputing.team13.util.ThreadMode;
 import edu.vanderbilt.cloudcomputing.team13.util.Player;
+import edu.vanderbilt.cloudcomputing.team13.util.RoundRecorder;
 
-import java.util.HashMap;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Created by Killian on 10/31/17.
  */
 public class GameClient implements Runnable{
     private static final Logger logger = LogManager.getLogger(GameClient.class.getName());
-    private static final Object REQUEST_LOCK = new Object();
     // this context is shared among all zmq sockets in this app
     private ZMQ.Context context;
     // ip address of host machine
     private String ip;
+    private String playerName;
     private String serverIp;
+    // the room this client plays in
+    private int roomId;
     // list of ports
     private String serverRepPort;
     private String serverPubPort;
 
     // a subscriber listening to the game server
     private ZMQ.Socket gameSub;
-    // a requester to the game server
-    private ZMQ.Socket gameRequester;
+    // a pipelined requester to the game server
+    private RequestChannel requestChannel;
 
-    // thread pool
+    // runs the command handlers, see ThreadMode
     private ExecutorService threadPool;
-    // command handler map <request name, action>
-    private HashMap<String, AbstractAction> commandHandler;
-
-    private boolean isClientStop = false;
+    public static final int HANDLER_THREADS = 10;
+    // keeps each stream's commands in the order they arrived, different streams run in parallel
+    private OrderedExecutor streams;
+    // command handler tables <opcode, action>: ink is everything that touches the canvas,
+    // the rest updates players and game state. A new game and a winner have an action in both
+    private Dispatcher inkHandler;
+    private Dispatcher commandHandler;
+    private static final String INK_STREAM = "ink";
+    private static final String PLAYER_STREAM = "players";
+
+    // what the subscriber thread asks the server for: player and game updates always, ink unless we draw ourselves
+    static final byte[] GAME_TOPICS = {MessageCodec.SERVER_ROSTER_DELTA, MessageCodec.SERVER_PLAYER_READY,
+            MessageCodec.SERVER_NEW_GAME, MessageCodec.SERVER_NEW_WINNER};
+    static final byte[] INK_TOPICS = {MessageCodec.SERVER_NEW_POINT, MessageCodec.SERVER_NEW_POINTS,
+            MessageCodec.SERVER_NEW_CURVES};
+    // owned by the subscriber thread
+    private boolean isInkSubscribed = false;
+
+    // publish sequence per opcode of our room, checked on the subscriber thread
+    private final boolean[] hasSequence = new boolean[MessageCodec.MAX_OPCODE + 1];
+    private final int[] lastSequence = new int[MessageCodec.MAX_OPCODE + 1];
+    private long missedCount = 0;
+    private long droppedEchoCount = 0;
+    // the room numbers its ink frames with one sequence, checked on the ink stream against the snapshot as well:
+    // the last one on the canvas, the first one since the numbering started over, frames the snapshot had already
+    private boolean hasInkSequence = false;
+    private int inkSequence = 0;
+    private int firstInkSequence = 0;
+    private long missedInkCount = 0;
+    private long droppedCoveredCount = 0;
+
+    // version of the player list we have, -1 before the first list; owned by the player stream
+    private int rosterVersion = -1;
+    // a CliRoster is on its way, deltas are kept until its list arrives and applied after it
+    private boolean isRosterRequested = false;
+    private long rosterRequestedAt = 0;
+    // deltas newer than our list, by version, waiting for the list or for the versions before them
+    private final TreeMap<Integer, byte[]> pendingDeltas = new TreeMap<>();
+
+    // how long an exiting client waits for its CliPlayerLeave to be acknowledged
+    private static final long LEAVE_TIMEOUT_MILLIS = 2000;
 
     // game specs
     private GameState gameState = new GameState();
 
     // graphic interface
     private GraphicInterface gui = null;
+    // guesses typed on the terminal
+    private GameConsole console;
+
+    // batches the drawer's points into CliNewPoints requests
+    private StrokeBatcher strokeBatcher;
+
+    // every round is recorded into this directory, null records nothing
+    private File recordingDirectory = null;
+    private RoundRecorder recorder = null;
+    // handlers start and finish recordings, a lock rather than a monitor since they write files
+    private final ReentrantLock recordingLock = new ReentrantLock();
 
     public GameClient(String ip, String playerName, String serverIp){
+        this(ip, playerName, serverIp, 0, 0);
+    }
+
+    // curveError > 0 sends strokes as Bezier curves fitted within that many pixels
+    public GameClient(String ip, String playerName, String serverIp, int roomId, double curveError){
+        this(ip, playerName, serverIp, roomId, curveError, null, ThreadMode.PLATFORM);
+    }
+
+    public GameClient(String ip, String playerName, String serverIp, int roomId, double curveError, File recordingDirectory,
+                      ThreadMode threadMode){
         this.ip = ip;
+        this.playerName = playerName;
         this.serverIp = serverIp;
+        this.roomId = roomId;
+        this.recordingDirectory = recordingDirectory;
 
         context = ZMQ.context(1);
         gameSub = context.socket(ZMQ.SUB);
-        gameRequester = context.socket(ZMQ.REQ);
 
         serverRepPort = "5555";
         serverPubPort = "5556";
+        requestChannel = new RequestChannel(context, "tcp://" + serverIp + ":" + serverRepPort);
+        // the snapshot answering our CliNewPlayer is handled like any other command
+        requestChannel.setReplyHandler(this::tryExecute);
+        strokeBatcher = new StrokeBatcher(roomId, this::makeRequest, curveError);
 
-        threadPool = Executors.newFixedThreadPool(10);
+        threadPool = threadMode.newExecutor("handler", HANDLER_THREADS);
+        streams = new OrderedExecutor(threadPool);
 
         initCommandHandler();
 
         gui = new GraphicInterface();
         GameBoard board = new GameBoard(gui, gameState);
         gui.init(this, board);
+        console = new GameConsole(this, gameState);
 
         initGame(playerName);
     }
 
     @Override
     public void run(){
-        gameRequester.connect("tcp://" + serverIp + ":" + serverRepPort);
+        requestChannel.start();
         gameSub.connect("tcp://"+ serverIp + ":" + serverPubPort);
-        gameSub.subscribe("".getBytes());
-        threadPool.submit(this::responder);
+        // the subscriber socket belongs to one long-lived platform thread, handlers go to the pool
+        Thread responderThread = new Thread(this::responder, "subscriber");
+        responderThread.setDaemon(true);
+        responderThread.start();
+        console.start();
         logger.info("*** Client is running.");
+        // the board runs on this thread until its window is closed, then the client leaves
         gui.startBoard();
 
-        while(!isClientStop){
-            try{
-                Thread.sleep(1000 * 10);
-            }catch (InterruptedException e){
-                break;
-            }
+        finishRecording();
+        strokeBatcher.stop();
+        makeRequest(MessageCodec.encodePlayerLeave(roomId, gameState.getPlayerId()));
+        // the DEALER does not linger, wait for the server to have the leave before closing it
+        if(!requestChannel.flush(LEAVE_TIMEOUT_MILLIS)){
+            logger.warn("server did not confirm that we left within {} ms", LEAVE_TIMEOUT_MILLIS);
         }
-        gameRequester.close();
+        threadPool.shutdown();
+        requestChannel.stop();
         gameSub.close();
         context.term();
     }
 
-    public void stop(){
-        isClientStop = true;
-    }
-
-    public void makeRequest(String reqStr){
-        String[] splited = reqStr.split("@");
-        if(splited.length < 1) {
-            logger.warn("invalid request: {}", reqStr);
-            return;
-        }
-        AbstractAction handler = commandHandler.get(splited[0]);
-        if(handler == null ){
-            logger.warn("invalid request: {}", reqStr);
+    // requests are pipelined, this only blocks while the request window is full
+    public void makeRequest(byte[] frame){
+        if(!MessageCodec.isValid(frame)){
+            logger.warn("invalid request");
             return;
         }
-        logger.debug("making request: {}", reqStr);
-        handler.setPara(splited[1]);
-        threadPool.submit(handler);
+        logger.debug("making request: {}", MessageCodec.opcodeName(MessageCodec.opcode(frame)));
+        requestChannel.submit(frame);
     }
 
-    private void responder(){
-        while(!Thread.currentThread().isInterrupted()){
-            //  Wait for next cmd from server
-            String topic = gameSub.recvStr();
-            String content = gameSub.recvStr();
-            String cmdStr = topic + "@" + content;
-            logger.debug("received cmd: {}", cmdStr);
-            tryExecute(cmdStr);
-        }
+    public void reportDrawnPoint(double x, double y){
+        strokeBatcher.addPoint(x, y);
     }
 
-    private void tryExecute(String cmdStr){
-        String[] splited = cmdStr.split("@");
-        AbstractAction handler = commandHandler.get(splited[0]);
-        if(handler == null){
-            logger.warn("invalid command: {}", cmdStr);
-        }else{
-            handler.setPara(splited[1]);
-            threadPool.submit(handler);
-        }
+    public void reportStrokeSeparator(){
+        strokeBatcher.addSeparator();
     }
 
-
-    private void initGame(String playerName){
-        //gameState.addPlayerMySelf(ip, playerName, ip + ":" + playerName);
-        gameState.setPlayerId(ip + ":" + playerName);
-        gameState.setGameEnd(true);
-
-        AbstractAction action = commandHandler.get("CliNewPlayer");
-        String playerId = ip + ":" + playerName;
-        action.setPara(playerId + "%" + ip + "%" + playerName);
-        threadPool.submit(action);
+    public void reportPlayerReady(String playerId, boolean isReady){
+        makeRequest(MessageCodec.encodePlayerReady(MessageCodec.CLI_PLAYER_READY, roomId, playerId, isReady));
     }
 
-    private void initCommandHandler(){
-        commandHandler = new HashMap<>();
-        // report info to server
-        commandHandler.put("CliNewPoint", new reportNewPoint());
-        commandHandler.put("CliNewWinner", new reportNewWinner());
-        commandHandler.put("CliNewPlayer", new reportNewPlayer());
-        commandHandler.put("CliPlayerReady", new reportPlayerReady());
-        // respond to the request from server
-        commandHandler.put("ServerNewPlayerList", new setupNewPlayerList());
-        commandHandler.put("ServerNewWinner", new setupNewWinner());
-        commandHandler.put("ServerPlayerReady", new setPlayerReady());
-        commandHandler.put("ServerNewPoint", new drawNewPoint());
-        commandHandler.put("ServerNewGame", new startNewGame());
+    // the answer comes back as a ServerGuessResult, a correct one also ends the round for everybody
+    public void reportGuess(String text){
+        makeRequest(MessageCodec.encodeGuess(roomId, gameState.getPlayerId(), text));
     }
 
-    private class reportNewPoint extends AbstractAction{
-        String para = null;
-
-        @Override
-        public void setPara(String para) {
-            this.para = para;
+    // start recording the round that just began, ends the previous recording if it had no winner
+    private void startRecording(String drawerId, String word){
+        recordingLock.lock();
+        try{
+            finishRecording();
+            if(recordingDirectory == null) return;
+            if(!recordingDirectory.isDirectory() && !recordingDirectory.mkdirs()){
+                logger.warn("cannot create recording directory {}", recordingDirectory);
+                return;
+            }
+            File file = new File(recordingDirectory, String.format("room%d-%d.round", roomId, System.currentTimeMillis()));
+            try{
+                recorder = new RoundRecorder(file, roomId, drawerId, word, CanvasSpec.WIDTH, CanvasSpec.HEIGHT,
+                        CanvasSpec.BRUSH_WIDTH);
+                gui.recordRound(recorder);
+                logger.info("recording round to {}", file);
+            }catch (IOException e){
+                logger.warn("cannot record round", e);
+            }
+        }finally{
+            recordingLock.unlock();
         }
+    }
 
-        @Override
-        public void run(){
-            if(para == null){
-                logger.warn("invalid parameter for reportNewPoint.");
-            }else{
-                String request = "CliNewPoint@" + para;
-                String reply = null;
-                // REQUEST-REPLY SHOULD BE PROTECTED BY LOCK
-                synchronized (REQUEST_LOCK){
-                    gameRequester.send(request);
-                    reply = gameRequester.recvStr();
-                }
-                logger.debug("sent req: {}, received rep: {}", request, reply);
+    private void finishRecording(){
+        recordingLock.lock();
+        try{
+            if(recorder == null) return;
+            gui.recordRound(null);
+            try{
+                recorder.close();
+                logger.info("recorded round, {} chunks, {} bytes", recorder.getChunkCount(), recorder.getSize());
+            }catch (IOException e){
+                logger.warn("cannot finish recording", e);
             }
+            recorder = null;
+        }finally{
+            recordingLock.unlock();
         }
     }
 
-    private class reportNewWinner extends AbstractAction{
-        String para = null;
-
-        @Override
-        public void setPara(String para) {
-            this.para = para;
+    private void responder(){
+        // only the traffic of our own room, one topic per kind of message
+        for(byte opcode : GAME_TOPICS){
+            gameSub.subscribe(MessageCodec.topic(roomId, opcode));
         }
-
-        @Override
-        public void run(){
-            if(para == null){
-                logger.warn("invalid parameter for reportNewWinner.");
-            }else{
-                String request = "CliNewWinner@" + para;
-                String reply = null;
-                synchronized (REQUEST_LOCK){
-                    gameRequester.send(request);
-                    reply = gameRequester.recvStr();
+        setInkSubscribed(true);
+        // join once subscribed, the snapshot tells which ink frames it holds and the rest must come from here
+        joinRoom();
+        while(!Thread.currentThread().isInterrupted()){
+            //  Wait for next cmd from server: [frame][sequence]
+            byte[] frame = gameSub.recv();
+            if(!MessageCodec.isValid(frame)) continue;
+            byte opcode = MessageCodec.opcode(frame);
+            boolean isSequenced = gameSub.hasReceiveMore();
+            int sequence = isSequenced ? MessageCodec.decodeSequence(gameSub.recv()) : 0;
+            while(gameSub.hasReceiveMore()){
+                gameSub.recv();
+            }
+            if(isInk(opcode)){
+                if(!isInkSubscribed){
+                    // our own strokes, published before the server saw us unsubscribe; the board already has them
+                    droppedEchoCount++;
+                }else{
+                    executeInk(frame, sequence);
                 }
-                logger.debug("sent req: {}, received rep: {}", request, reply);
+                continue;
+            }
+            if(isSequenced) checkSequence(opcode, sequence);
+            // the drawer draws locally and needs no echo of its strokes
+            if(opcode == MessageCodec.SERVER_NEW_GAME){
+                setInkSubscribed(!new MessageReader(frame).readString().equals(gameState.getPlayerId()));
+            }else if(opcode == MessageCodec.SERVER_NEW_WINNER){
+                setInkSubscribed(true);
             }
+            tryExecute(frame);
         }
     }
 
-    private class reportNewPlayer extends AbstractAction{
-        String para = null;
+    private void setInkSubscribed(boolean isSubscribed){
+        if(isSubscribed == isInkSubscribed) return;
+        for(byte opcode : INK_TOPICS){
+            if(isSubscribed){
+                gameSub.subscribe(MessageCodec.topic(roomId, opcode));
+            }else{
+                gameSub.unsubscribe(MessageCodec.topic(roomId, opcode));
+            }
+        }
+        // numbering goes on without us while unsubscribed, the ink stream starts over with the next frame
+        if(isSubscribed) streams.execute(INK_STREAM, () -> hasInkSequence = false);
+        isInkSubscribed = isSubscribed;
+        logger.debug("{} ink, {} echoed frames dropped so far", isSubscribed ? "subscribed to" : "unsubscribed from", droppedEchoCount);
+    }
 
-        @Override
-        public void setPara(String para) {
-            this.para = para;
+    private static boolean isInk(byte opcode){
+        for(byte ink : INK_TOPICS){
+            if(opcode == ink) return true;
         }
+        return false;
+    }
 
-        @Override
-        public void run(){
-            if(para == null){
-                logger.warn("invalid parameter for reportNewPlayer.");
-            }else{
-                String request = "CliNewPlayer@" + para;
-                String reply = null;
-                synchronized (REQUEST_LOCK){
-                    gameRequester.send(request);
-                    reply= gameRequester.recvStr();
+    // the server numbers what it publishes per room and opcode, a jump means messages were dropped on the way
+    private void checkSequence(byte opcode, int sequence){
+        if(opcode < 0) return;
+        if(hasSequence[opcode]){
+            int expected = lastSequence[opcode] + 1;
+            if(sequence != expected){
+                if(sequence - expected > 0){
+                    missedCount += sequence - expected;
+                    logger.warn("missed {} {} messages of room {} before #{}, {} missed so far", sequence - expected,
+                            MessageCodec.opcodeName(opcode), roomId, sequence, missedCount);
+                }else{
+                    logger.warn("{} #{} of room {} arrived after #{}", MessageCodec.opcodeName(opcode), sequence, roomId,
+                            lastSequence[opcode]);
+                    return;
                 }
-                logger.debug("sent req: {}", request);
-                logger.debug("received rep: {}", reply);
             }
         }
+        hasSequence[opcode] = true;
+        lastSequence[opcode] = sequence;
     }
 
-    private class reportPlayerReady extends AbstractAction{
-        String para = null;
-
-        @Override
-        public void setPara(String para) {
-            this.para = para;
-        }
+    // an ink frame with its sequence, checked and drawn on the ink stream
+    private void executeInk(byte[] frame, int sequence){
+        AbstractAction inkAction = inkHandler.actionOf(frame);
+        logger.debug("received cmd: {} #{}", MessageCodec.opcodeName(MessageCodec.opcode(frame)), sequence);
+        MessageView message = new MessageView(frame);
+        streams.execute(INK_STREAM, () -> {
+            if(checkInkSequence(sequence)) inkAction.run(message);
+        });
+    }
 
-        @Override
-        public void run(){
-            if(para == null){
-                logger.warn("invalid parameter for reportPlayerReady.");
-            }else{
-                String request = "CliPlayerReady@" + para;
-                String reply = null;
-                synchronized (REQUEST_LOCK){
-                    gameRequester.send(request);
-                    reply = gameRequester.recvStr();
-                }
-                logger.debug("sent req: {}, received rep: {}", request, reply);
+    // runs on the ink stream, false for a frame the snapshot had already
+    private boolean checkInkSequence(int sequence){
+        if(!hasInkSequence){
+            hasInkSequence = true;
+            firstInkSequence = sequence;
+        }else{
+            int expected = inkSequence + 1;
+            if(sequence - expected < 0){
+                droppedCoveredCount++;
+                return false;
+            }
+            if(sequence != expected){
+                missedInkCount += sequence - expected;
+                logger.warn("missed {} ink messages of room {} before #{}, {} missed so far", sequence - expected,
+                        roomId, sequence, missedInkCount);
             }
         }
+        inkSequence = sequence;
+        return true;
     }
 
-    private class setupNewPlayerList extends AbstractAction {
-        String para = null;
+    // runs on the ink stream once a snapshot is drawn, it holds the ink frames up to sequence
+    private void setInkBaseline(int sequence){
+        if(hasInkSequence && firstInkSequence - (sequence + 1) > 0){
+            // subscribed too late: published after the snapshot was taken, but before the server had our subscription
+            missedInkCount += firstInkSequence - sequence - 1;
+            logger.warn("missed {} ink messages of room {} between the snapshot and #{}", firstInkSequence - sequence - 1,
+                    roomId, firstInkSequence);
+        }
+        if(!hasInkSequence || sequence - inkSequence > 0){
+            inkSequence = sequence;
+        }
+        hasInkSequence = true;
+        firstInkSequence = sequence;
+        logger.debug("ink baseline #{}, {} frames the snapshot had dropped so far", inkSequence, droppedCoveredCount);
+    }
 
-        @Override
-        public void setPara(String para) {
-            this.para = para;
+    private void tryExecute(byte[] frame){
+        AbstractAction inkAction = inkHandler.actionOf(frame);
+        AbstractAction action = commandHandler.actionOf(frame);
+        if(inkAction == null && action == null){
+            logger.warn("invalid command");
+            return;
+        }
+        logger.debug("received cmd: {}", MessageCodec.opcodeName(MessageCodec.opcode(frame)));
+        // the actions are shared, a view of the frame travels with the task; each stream reads through its own view
+        if(inkAction != null){
+            MessageView message = new MessageView(frame);
+            streams.execute(INK_STREAM, () -> inkAction.run(message));
         }
+        if(action != null){
+            MessageView message = new MessageView(frame);
+            streams.execute(PLAYER_STREAM, () -> action.run(message));
+        }
+    }
 
+
+    private void initGame(String playerName){
+        //gameState.addPlayerMySelf(ip, playerName, ip + ":" + playerName);
+        gameState.setPlayerId(ip + ":" + playerName);
+        gameState.setGameEnd(true);
+    }
+
+    // sent by the subscriber thread once it subscribed to our room
+    private void joinRoom(){
+        makeRequest(MessageCodec.encodeNewPlayer(roomId, gameState.getPlayerId(), ip, playerName));
+        // the server handles our requests in order, the list includes us
+        requestRoster();
+    }
+
+    private void initCommandHandler(){
+        // respond to the request from server
+        inkHandler = new Dispatcher()
+                .register(MessageCodec.SERVER_NEW_POINT, new drawNewPoint())
+                .register(MessageCodec.SERVER_NEW_POINTS, new drawNewPoints())
+                .register(MessageCodec.SERVER_NEW_CURVES, new drawNewCurves())
+                .register(MessageCodec.SERVER_SNAPSHOT, new applySnapshot())
+                .register(MessageCodec.SERVER_NEW_GAME, new startNewCanvas())
+                .register(MessageCodec.SERVER_NEW_WINNER, new finishCanvas());
+        commandHandler = new Dispatcher()
+                .register(MessageCodec.SERVER_NEW_PLAYER_LIST, new setupNewPlayerList())
+                .register(MessageCodec.SERVER_ROSTER_DELTA, new applyRosterDelta())
+                .register(MessageCodec.SERVER_NEW_WINNER, new setupNewWinner())
+                .register(MessageCodec.SERVER_PLAYER_READY, new setPlayerReady())
+                .register(MessageCodec.SERVER_NEW_GAME, new startNewGame())
+                .register(MessageCodec.SERVER_GUESS_RESULT, new showGuessResult());
+    }
+
+    private class setupNewPlayerList extends AbstractAction {
         @Override
-        public void run() {
+        public void run(MessageView para){
             if (para == null) {
                 logger.warn("invalid parameter for setupNewPlayerList: null");
             } else {
-                String[] players = para.split("\\|");
-                for (String player : players) {
-                    String[] splited = player.split("%");
-                    if (splited.length != 4) {
-                        logger.warn("invalid parameter for setupNewPlayerList: {}, {}", para, player);
-                        return;
+                MessageReader reader = para.reader();
+                int version = reader.readInt();
+                isRosterRequested = false;
+                // an answer to an older request, we know better already
+                if (version < rosterVersion) {
+                    applyPendingDeltas();
+                    return;
+                }
+                // the list replaces the players we have
+                int count = reader.readShort();
+                Set<String> listed = new HashSet<>();
+                for (int i = 0; i < count; i++) {
+                    String playerId = reader.readString();
+                    String playerIp = reader.readString();
+                    String playerName = reader.readString();
+                    int playerPosition = reader.readShort();
+                    listed.add(playerId);
+                    Player known = gameState.getPlayers().get(playerId);
+                    if (known != null && known.getPosition() != playerPosition) {
+                        gameState.removePlayer(playerId);
                     }
-                    String playerId = splited[0];
-                    String playerIp = splited[1];
-                    String playerName = splited[2];
-                    String playerPosition = splited[3];
-                    gameState.addPlayer(playerIp, playerName, playerId, playerPosition);
+                    gameState.addPlayer(playerIp, playerName, playerId, Integer.toString(playerPosition));
                 }
+                for (Player player : gameState.getPlayers().list()) {
+                    if (!listed.contains(player.getId())) gameState.removePlayer(player.getId());
+                }
+                rosterVersion = version;
+                // changes published after the list was serialised but received before it
+                applyPendingDeltas();
             }
         }
     }
 
-    private class setupNewWinner extends AbstractAction{
-        String para = null;
-
+    private class applyRosterDelta extends AbstractAction {
         @Override
-        public void setPara(String para) {
-            this.para = para;
+        public void run(MessageView para){
+            if (para == null) {
+                logger.warn("invalid parameter for applyRosterDelta: null");
+                return;
+            }
+            int version = para.reader().readInt();
+            // the list had this change already
+            if (version <= rosterVersion) return;
+            // a view is only valid during the call
+            pendingDeltas.put(version, para.toByteArray());
+            if (isRosterRequested) {
+                // asks again only if the last request went unanswered
+                requestRoster();
+            } else {
+                applyPendingDeltas();
+            }
+        }
+    }
+
+    // applies the kept deltas that follow our version, asks for the list if one is missing
+    private void applyPendingDeltas(){
+        while (!pendingDeltas.isEmpty()) {
+            int version = pendingDeltas.firstKey();
+            if (version <= rosterVersion) {
+                pendingDeltas.pollFirstEntry();
+            } else if (version == rosterVersion + 1) {
+                applyDelta(pendingDeltas.pollFirstEntry().getValue());
+            } else {
+                if (!isRosterRequested) {
+                    logger.warn("roster version {} after {}, {} changes missed, asking for the list", version,
+                            rosterVersion, version - rosterVersion - 1);
+                }
+                requestRoster();
+                return;
+            }
         }
+    }
 
+    private void applyDelta(byte[] frame){
+        MessageReader reader = new MessageReader(frame);
+        int version = reader.readInt();
+        int kind = reader.readByte();
+        String playerId = reader.readString();
+        String playerIp = reader.readString();
+        String playerName = reader.readString();
+        int playerPosition = reader.readShort();
+        if (kind == MessageCodec.ROSTER_JOIN) {
+            gameState.addPlayer(playerIp, playerName, playerId, Integer.toString(playerPosition));
+        } else if (kind == MessageCodec.ROSTER_LEAVE) {
+            gameState.removePlayer(playerId);
+        } else {
+            logger.warn("unknown roster change: {}", kind);
+        }
+        rosterVersion = version;
+    }
+
+    // the whole player list, once per gap unless the request timed out; the reply is handled like a published list
+    private void requestRoster(){
+        if (isRosterRequested && System.nanoTime() - rosterRequestedAt < RequestChannel.REPLY_TIMEOUT_MILLIS * 1000000L) return;
+        isRosterRequested = true;
+        rosterRequestedAt = System.nanoTime();
+        makeRequest(MessageCodec.encodeRosterRequest(roomId));
+    }
+
+    private class setupNewWinner extends AbstractAction{
         @Override
-        public void run() {
+        public void run(MessageView para){
             if (para == null) {
                 logger.warn("invalid parameter for setupNewWinner: null");
             } else {
-                gameState.setWinnerId(para);
+                gameState.setWinnerId(para.reader().readString());
 
                 // reset game state, clear ready state
                 gameState.setGameEnd(true);
@@ -312,60 +548,95 @@ public class GameClient implements Runnable{
         }
     }
 
-    private class setPlayerReady extends AbstractAction {
-        String para = null;
-
+    private class showGuessResult extends AbstractAction {
         @Override
-        public void setPara(String para) {
-            this.para = para;
+        public void run(MessageView para){
+            if (para == null) {
+                logger.warn("invalid parameter for showGuessResult: null");
+            } else {
+                console.showGuessResult(para.reader().readByte());
+            }
         }
+    }
 
+    private class setPlayerReady extends AbstractAction {
         @Override
-        public void run() {
+        public void run(MessageView para){
             if (para == null) {
                 logger.warn("invalid parameter for setPlayerReady: null");
             } else {
-                String[] splited = para.split("%");
-                int readyState = Integer.parseInt(splited[1]);
-                gameState.setPlayerReady(splited[0], readyState != 0);
+                MessageReader reader = para.reader();
+                String playerId = reader.readString();
+                boolean readyState = reader.readBoolean();
+                gameState.setPlayerReady(playerId, readyState);
             }
         }
     }
 
     private class drawNewPoint extends AbstractAction {
-        String para = null;
-
         @Override
-        public void setPara(String para) {
-            this.para = para;
+        public void run(MessageView para){
+            if (!para.isPointFrame()) {
+                logger.warn("invalid parameter for drawNewPoint.");
+            } else {
+                gui.drawPoint(para.pointX(), para.pointY());
+            }
         }
+    }
 
+    private class drawNewPoints extends AbstractAction {
         @Override
-        public void run() {
-            if (para == null) {
-                logger.warn("invalid parameter for drawNewPoint: null");
+        public void run(MessageView para){
+            if (!para.isPointsFrame()) {
+                logger.warn("invalid parameter for drawNewPoints.");
             } else {
-                gui.drawPoint(para);
+                StrokeDecoder decoder = new StrokeDecoder().reset(para);
+                while (decoder.next()) {
+                    if (decoder.isSeparator()) {
+                        gui.drawSeparator();
+                    } else {
+                        gui.drawPoint(decoder.x(), decoder.y());
+                    }
+                }
             }
         }
     }
 
-    private class startNewGame extends AbstractAction{
-        String para = null;
-
+    private class drawNewCurves extends AbstractAction {
         @Override
-        public void setPara(String para) {
-            this.para = para;
+        public void run(MessageView para){
+            if (!para.isPointsFrame()) {
+                logger.warn("invalid parameter for drawNewCurves.");
+            } else {
+                // control points of the current piece, a piece ends at a separator or at the end of the frame
+                double[] ctrl = new double[para.pointCount() * 2];
+                int ctrlNum = 0;
+                StrokeDecoder decoder = new StrokeDecoder().reset(para);
+                while (decoder.next()) {
+                    if (decoder.isSeparator()) {
+                        CurveFitter.sample(ctrl, ctrlNum, gui::drawPoint);
+                        ctrlNum = 0;
+                        gui.drawSeparator();
+                    } else {
+                        ctrl[ctrlNum * 2] = decoder.x();
+                        ctrl[ctrlNum * 2 + 1] = decoder.y();
+                        ctrlNum++;
+                    }
+                }
+                CurveFitter.sample(ctrl, ctrlNum, gui::drawPoint);
+            }
         }
+    }
 
+    private class startNewGame extends AbstractAction{
         @Override
-        public void run() {
+        public void run(MessageView para){
             if(para == null){
                 logger.warn("invalid parameter for startNewGame: null");
             }else{
-                String[] splited = para.split("%");
-                String drawerId = splited[0];
-                String word = splited[1];
+                MessageReader reader = para.reader();
+                String drawerId = reader.readString();
+                String word = reader.readString();
                 gameState.startNewGame(drawerId, word);
                 logger.info("new game started. drawerId: {}, word: {}", drawerId, word);
             }
@@ -373,8 +644,68 @@ public class GameClient implements Runnable{
 
     }
 
+    private class startNewCanvas extends AbstractAction{
+        @Override
+        public void run(MessageView para){
+            if(para == null){
+                logger.warn("invalid parameter for startNewCanvas: null");
+            }else{
+                MessageReader reader = para.reader();
+                String drawerId = reader.readString();
+                String word = reader.readString();
+                // every round starts on a blank canvas, the server's stroke log does the same
+                gui.clearCanvas();
+                startRecording(drawerId, word);
+            }
+        }
+    }
+
+    private class finishCanvas extends AbstractAction{
+        @Override
+        public void run(MessageView para){
+            // the ink stream has drawn all of the round by now
+            finishRecording();
+        }
+    }
+
+    private class applySnapshot extends AbstractAction{
+        @Override
+        public void run(MessageView para){
+            if(para == null){
+                logger.warn("invalid parameter for applySnapshot: null");
+            }else{
+                MessageReader reader = para.reader();
+                int sequence = reader.readInt();
+                int width = reader.readShort();
+                int height = reader.readShort();
+                int keyframeLength = reader.readInt();
+                if(keyframeLength > 0){
+                    gui.drawKeyframe(StrokeRaster.decompress(reader.readBytes(keyframeLength), width, height));
+                }
+                // the tail is drawn as strokes of its own, on top of whatever arrived meanwhile
+                StrokeDecoder decoder = new StrokeDecoder().reset(para, reader.position());
+                gui.drawSeparator();
+                while (decoder.next()) {
+                    if (decoder.isSeparator()) {
+                        gui.drawSeparator();
+                    } else {
+                        gui.drawPoint(decoder.x(), decoder.y());
+                    }
+                }
+                gui.drawSeparator();
+                setInkBaseline(sequence);
+                logger.info("applied snapshot, keyframe: {} bytes, ink up to #{}", keyframeLength, sequence);
+            }
+        }
+    }
+
     public static void main(String[] args) {
-        new GameClient(args[0], args[1], args[2]).run();
+        int roomId = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        double curveError = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+        // "-" records nothing
+        File recordingDirectory = args.length > 5 && !args[5].equals("-") ? new File(args[5]) : null;
+        ThreadMode threadMode = args.length > 6 ? ThreadMode.parse(args[6]) : ThreadMode.PLATFORM;
+        new GameClient(args[0], args[1], args[2], roomId, curveError, recordingDirectory, threadMode).run();
     }
 
 }
@@ -1,16 +1,67 @@
 package edu.vanderbilt.cloudcomputing.team13.client;
 
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Created by Killian on 11/2/17.
+ *
+ * Reads guesses from the terminal, one per line, and sends them while a round is on and we are not drawing.
  */
 public class GameConsole{
+    private static final Logger logger = LogManager.getLogger(GameConsole.class.getName());
+
     GameState gameState = null;
+    private final GameClient client;
 
-    GameConsole(GameState gameState){
+    GameConsole(GameClient client, GameState gameState){
+        this.client = client;
         this.gameState = gameState;
     }
 
-    public void sendMsg(){
+    // reads the terminal on a daemon thread, it ends with the input or the client
+    public void start(){
+        Thread consoleThread = new Thread(this::readGuesses, "console");
+        consoleThread.setDaemon(true);
+        consoleThread.start();
+    }
+
+    public void sendMsg(String text){
+        if(!gameState.isGameOn()){
+            System.out.println("no round is on, wait for the next one");
+        }else if(gameState.isDrawer()){
+            System.out.println("you are drawing, no guessing");
+        }else{
+            client.reportGuess(text);
+        }
+    }
+
+    public void showGuessResult(int result){
+        if(result == MessageCodec.GUESS_CORRECT){
+            System.out.println("correct!");
+        }else if(result == MessageCodec.GUESS_CLOSE){
+            System.out.println("close, try again");
+        }else{
+            System.out.println("wrong");
+        }
+    }
 
+    private void readGuesses(){
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        try{
+            String line;
+            while((line = in.readLine()) != null){
+                line = line.trim();
+                if(!line.isEmpty()) sendMsg(line);
+            }
+        }catch (IOException e){
+            logger.warn("cannot read guesses", e);
+        }
     }
 }
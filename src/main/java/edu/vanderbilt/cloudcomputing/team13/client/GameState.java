@@ -1,12 +1,10 @@
 package edu.vanderbilt.cloudcomputing.team13.client;
 
 import edu.vanderbilt.cloudcomputing.team13.util.Player;
+import edu.vanderbilt.cloudcomputing.team13.util.PlayerRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 /**
  * Created by Killian on 11/2/17.
  */
@@ -20,8 +18,11 @@ public class GameState {
     private String drawerId = null;
     private String winnerId = null;
 
-    // a list of players <id, player>
-    private ConcurrentHashMap<String, Player> playersMap = new ConcurrentHashMap<>();
+    // the players by slot, a player's slot is its position
+    private PlayerRegistry players = new PlayerRegistry(MAX_PLAYER);
+
+    // told after every modification, the game board uses it to redraw
+    private volatile Runnable changeListener = null;
 
 
     /**
@@ -30,21 +31,38 @@ public class GameState {
 
     public void setGameEnd(boolean gameEnd) {
         isGameEnd = gameEnd;
+        changed();
     }
 
     public void setPlayerId(String playerId) {
         this.playerId = playerId;
+        changed();
     }
 
     public void setWord(String word) {
         this.word = word;
+        changed();
     }
 
     public void addPlayer(String playerIp, String playerName, String playerId, String playerPos){
-        if(playersMap.containsKey(playerId)) return;
-        Player player = new Player(playerIp, playerName, playerId);
-        player.setPosition(Integer.parseInt(playerPos));
-        playersMap.put(playerId, player);
+        if(players.contains(playerId)) return;
+        if(!players.add(new Player(playerIp, playerName, playerId), Integer.parseInt(playerPos))){
+            logger.warn("no room for player {} at position {}", playerId, playerPos);
+            return;
+        }
+        changed();
+    }
+
+    // the lowest free position, returns false if the game is full; a player already in the game keeps its own
+    public boolean addPlayer(String playerIp, String playerName, String playerId){
+        if(players.add(new Player(playerIp, playerName, playerId)) < 0) return false;
+        changed();
+        return true;
+    }
+
+    public void removePlayer(String playerId){
+        if(players.remove(playerId) == null) return;
+        changed();
     }
 
     public void addPlayerMySelf(String playerIp, String playerName, String playerId, String playerPos){
@@ -54,16 +72,17 @@ public class GameState {
 
     public void setDrawerId(String drawerId) {
         this.drawerId = drawerId;
+        changed();
     }
 
     public void setWinnerId(String winnerId) {
         this.winnerId = winnerId;
+        changed();
     }
 
     public void clearReady(){
-        for(Map.Entry<String, Player> entry : playersMap.entrySet()){
-            entry.getValue().setReady(false);
-        }
+        players.clearReady();
+        changed();
     }
 
     public void clearDrawer(){
@@ -71,12 +90,11 @@ public class GameState {
     }
 
     public void setPlayerReady(String playerId, boolean readyState){
-        Player player = playersMap.get(playerId);
-        if(player == null){
+        if(!players.setReady(playerId, readyState)){
             logger.warn("invalid player id: {}", playerId);
             return;
         }
-        player.setReady(readyState);
+        changed();
     }
 
     public void startNewGame(String drawerId, String word){
@@ -84,6 +102,16 @@ public class GameState {
         this.word = word;
         clearReady();
         isGameEnd = false;
+        changed();
+    }
+
+    public void setChangeListener(Runnable changeListener){
+        this.changeListener = changeListener;
+    }
+
+    private void changed(){
+        Runnable listener = changeListener;
+        if(listener != null) listener.run();
     }
 
     /**
@@ -98,20 +126,21 @@ public class GameState {
         return MAX_PLAYER;
     }
 
+    // null until the server's player list names us, and on a board that only plays a recording
     public Player getPlayerMyself(){
-        return playersMap.get(playerId);
+        return players.get(playerId);
     }
 
     public String getPlayerId() {
         return playerId;
     }
 
-    public ConcurrentHashMap<String, Player> getPlayersMap() {
-        return playersMap;
+    public PlayerRegistry getPlayers() {
+        return players;
     }
 
     public int getCurPlayerNum(){
-        return playersMap.size();
+        return players.size();
     }
 
     public boolean isGameOn(){
@@ -127,6 +156,6 @@ public class GameState {
     }
 
     public String getDrawerName(){
-        return playersMap.get(drawerId).getName();
+        return players.get(drawerId).getName();
     }
 }
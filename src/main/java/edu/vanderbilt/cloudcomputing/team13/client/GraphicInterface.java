@@ -1,5 +1,7 @@
 package edu.vanderbilt.cloudcomputing.team13.client;
 
+import edu.vanderbilt.cloudcomputing.team13.util.RoundRecorder;
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeRaster;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -25,14 +27,30 @@ public class GraphicInterface {
         board.run();
     }
 
-    public void drawPoint(String coord){
-        String[] splited = coord.split("%");
-        if(splited.length != 2){
-            logger.warn("cant draw point with following coord: {}", coord);
-            return;
-        }
-        double x = Double.parseDouble(splited[0]);
-        double y = Double.parseDouble(splited[1]);
+    // false if the board is not up after this long
+    public boolean awaitBoard(long timeoutMillis) throws InterruptedException{
+        return board.awaitStarted(timeoutMillis);
+    }
+
+    public void clearCanvas(){
+        board.clearCanvas();
+    }
+
+    // the compacted part of a late joiner's drawing
+    public void drawKeyframe(StrokeRaster keyframe){
+        board.setKeyframe(keyframe);
+    }
+
+    // null stops recording
+    public void recordRound(RoundRecorder recorder){
+        board.setRecorder(recorder);
+    }
+
+    public void drawSeparator(){
+        board.addSeparatorToDrawnList();
+    }
+
+    public void drawPoint(double x, double y){
         if(x == Double.MAX_VALUE && y == Double.MAX_VALUE){
             board.addSeparatorToDrawnList();
         }else{
@@ -42,12 +60,14 @@ public class GraphicInterface {
 
     // reports from game board to client
     public void reportDrawnPoint(double x, double y){
-        String str = "CliNewPoint@" + Double.toString(x) + "%" + Double.toString(y);
-        client.makeRequest(str);
+        client.reportDrawnPoint(x, y);
+    }
+
+    public void reportStrokeSeparator(){
+        client.reportStrokeSeparator();
     }
 
     public void reportPlayerReady(String playerId, boolean isReady){
-        String str = "CliPlayerReady@" + playerId + "%" + (isReady ? "1" : "0");
-        client.makeRequest(str);
+        client.reportPlayerReady(playerId, isReady);
     }
 }
@@ -0,0 +1,206 @@
+package edu.vanderbilt.cloudcomputing.team13.client;
+
+import edu.vanderbilt.cloudcomputing.team13.util.Mailbox;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.zeromq.ZMQ;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Pipelined request path to the game server.
+ * A DEALER socket owned by one thread sends every request as [correlation id][frame] without waiting,
+ * the server's ROUTER answers with [correlation id][OK or ERROR] once the request has been processed.
+ * Some requests are answered with a message instead of OK (CliNewPlayer gets a ServerSnapshot),
+ * those replies are handed to the reply handler.
+ * At most windowSize requests are outstanding, {@link #submit(byte[])} blocks while the window is full.
+ * A request that gets no reply within REPLY_TIMEOUT_MILLIS, lost to a server restart or dropped by the ROUTER
+ * for a reconnected peer, is given up and frees its place in the window; a late reply to it is only logged.
+ */
+public class RequestChannel {
+    private static final Logger logger = LogManager.getLogger(RequestChannel.class.getName());
+
+    public static final int DEFAULT_WINDOW_SIZE = 256;
+    public static final long REPLY_TIMEOUT_MILLIS = 10000;
+    // how often the channel thread looks for requests that timed out
+    private static final long EXPIRY_CHECK_MILLIS = 1000;
+
+    private final ZMQ.Context context;
+    private final String endpoint;
+    private final int windowSize;
+    private final Semaphore window;
+    // requests waiting for the channel thread to put them on the socket
+    private final Mailbox<byte[]> outbox = new Mailbox<>();
+
+    // owned by the channel thread, in the order the requests were sent, so the oldest comes first
+    private final LinkedHashMap<Integer, Pending> pending = new LinkedHashMap<>();
+    private int nextCorrelationId = 0;
+    private long expiredCount = 0;
+
+    // gets every reply that is a message rather than OK or ERROR, called on the channel thread
+    private volatile Consumer<byte[]> replyHandler = null;
+
+    private Thread channelThread;
+    private volatile boolean isChannelStop = false;
+
+    public RequestChannel(ZMQ.Context context, String endpoint){
+        this(context, endpoint, DEFAULT_WINDOW_SIZE);
+    }
+
+    public RequestChannel(ZMQ.Context context, String endpoint, int windowSize){
+        this.context = context;
+        this.endpoint = endpoint;
+        this.windowSize = windowSize;
+        this.window = new Semaphore(windowSize);
+    }
+
+    public void setReplyHandler(Consumer<byte[]> replyHandler){
+        this.replyHandler = replyHandler;
+    }
+
+    public void start(){
+        channelThread = new Thread(this::loop, "request-channel");
+        channelThread.setDaemon(true);
+        channelThread.start();
+    }
+
+    public void stop(){
+        isChannelStop = true;
+        outbox.wakeup();
+        try{
+            channelThread.join(1000);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        outbox.close();
+    }
+
+    public void submit(byte[] frame){
+        try{
+            window.acquire();
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            logger.warn("interrupted while waiting for the request window, dropped {}",
+                    MessageCodec.opcodeName(MessageCodec.opcode(frame)));
+            return;
+        }
+        outbox.offer(frame);
+    }
+
+    public int getOutstanding(){
+        return windowSize - window.availablePermits();
+    }
+
+    // waits until every request submitted so far was answered or given up, returns false on timeout
+    public boolean flush(long timeoutMillis){
+        try{
+            if(!window.tryAcquire(windowSize, timeoutMillis, TimeUnit.MILLISECONDS)) return false;
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        window.release(windowSize);
+        return true;
+    }
+
+    private void loop(){
+        ZMQ.Socket dealer = context.socket(ZMQ.DEALER);
+        dealer.setLinger(0);
+        dealer.connect(endpoint);
+        ZMQ.Poller poller = context.poller(2);
+        poller.register(dealer, ZMQ.Poller.POLLIN);
+        int outboxIndex = poller.register(outbox.channel(), ZMQ.Poller.POLLIN);
+
+        while(!isChannelStop && !Thread.currentThread().isInterrupted()){
+            if(poller.poll(EXPIRY_CHECK_MILLIS) < 0) break;
+            if(poller.pollin(outboxIndex)){
+                outbox.clearSignal();
+                byte[] frame;
+                while((frame = outbox.poll()) != null){
+                    int correlationId = nextCorrelationId++;
+                    pending.put(correlationId, new Pending(MessageCodec.opcode(frame),
+                            System.nanoTime() + REPLY_TIMEOUT_MILLIS * 1000000L));
+                    dealer.sendMore(encodeCorrelationId(correlationId));
+                    dealer.send(frame);
+                }
+            }
+            // the socket signals new arrivals only, and sending may have taken that signal: take every reply waiting
+            byte[] id;
+            while((id = dealer.recv(ZMQ.DONTWAIT)) != null){
+                onReply(id, dealer.hasReceiveMore() ? dealer.recv() : null);
+            }
+            expire();
+        }
+        poller.unregister(dealer);
+        poller.unregister(outbox.channel());
+        dealer.close();
+    }
+
+    private void onReply(byte[] id, byte[] reply){
+        if(id == null || id.length != 4){
+            logger.warn("reply without correlation id");
+            return;
+        }
+        Pending request = pending.remove(decodeCorrelationId(id));
+        if(request == null){
+            logger.warn("reply for unknown or timed out request: {}", decodeCorrelationId(id));
+            return;
+        }
+        window.release();
+        byte opcode = request.opcode;
+        if(!MessageCodec.isValid(reply)){
+            logger.warn("invalid reply to request {}", MessageCodec.opcodeName(opcode));
+        }else if(MessageCodec.opcode(reply) == MessageCodec.REPLY_OK){
+            logger.debug("request {} acknowledged", MessageCodec.opcodeName(opcode));
+        }else if(MessageCodec.opcode(reply) != MessageCodec.REPLY_ERROR){
+            logger.debug("request {} answered with {}", MessageCodec.opcodeName(opcode),
+                    MessageCodec.opcodeName(MessageCodec.opcode(reply)));
+            Consumer<byte[]> handler = replyHandler;
+            if(handler != null) handler.accept(reply);
+        }else{
+            logger.warn("request {} rejected by server", MessageCodec.opcodeName(opcode));
+        }
+    }
+
+    // gives up the requests whose reply is overdue, the oldest are first in line
+    private void expire(){
+        long now = System.nanoTime();
+        int expired = 0;
+        Iterator<Pending> it = pending.values().iterator();
+        while(it.hasNext()){
+            Pending request = it.next();
+            if(request.deadline - now > 0) break;
+            it.remove();
+            expired++;
+        }
+        if(expired > 0){
+            window.release(expired);
+            expiredCount += expired;
+            logger.warn("{} requests got no reply within {} ms, {} timed out so far", expired, REPLY_TIMEOUT_MILLIS, expiredCount);
+        }
+    }
+
+    // a request on its way, waiting for its reply
+    private static class Pending{
+        final byte opcode;
+        final long deadline;
+
+        Pending(byte opcode, long deadline){
+            this.opcode = opcode;
+            this.deadline = deadline;
+        }
+    }
+
+    static byte[] encodeCorrelationId(int id){
+        return new byte[]{(byte) (id >>> 24), (byte) (id >>> 16), (byte) (id >>> 8), (byte) id};
+    }
+
+    static int decodeCorrelationId(byte[] id){
+        return ((id[0] & 0xff) << 24) | ((id[1] & 0xff) << 16) | ((id[2] & 0xff) << 8) | (id[3] & 0xff);
+    }
+}
@@ -0,0 +1,120 @@
+package edu.vanderbilt.cloudcomputing.team13.client;
+
+import edu.vanderbilt.cloudcomputing.team13.util.RoundReader;
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeRaster;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays a recorded round (see RoundRecorder) into a game board, streaming it chunk by chunk from the file.
+ * Playback starts at any moment of the round: the board gets the keyframe before it and the events up to that
+ * moment at once, the rest comes at the chosen speed. Playback waits for the board's rendering loop, so nothing is
+ * drawn before the window is up and the round's clock starts when it is shown.
+ *
+ *   RoundPlayer <recording> [1 | 10 | instant] [fromSeconds]
+ */
+public class RoundPlayer implements Runnable{
+    private static final Logger logger = LogManager.getLogger(RoundPlayer.class.getName());
+
+    public static final double REAL_TIME = 1;
+    public static final double FAST = 10;
+    // no waiting between events
+    public static final double INSTANT = Double.POSITIVE_INFINITY;
+
+    private final RoundReader reader;
+    private final GraphicInterface gui;
+    private final double speed;
+    // where playback starts, in milliseconds of the round
+    private final int fromMillis;
+    private volatile boolean isPlayerStop = false;
+    // how often the wait for the board looks whether playback was stopped
+    private static final long BOARD_WAIT_MILLIS = 100;
+
+    public RoundPlayer(RoundReader reader, GraphicInterface gui, double speed, int fromMillis){
+        if(!(speed > 0)){
+            throw new IllegalArgumentException("invalid playback speed: " + speed);
+        }
+        this.reader = reader;
+        this.gui = gui;
+        this.speed = speed;
+        this.fromMillis = Math.max(0, fromMillis);
+    }
+
+    @Override
+    public void run(){
+        try{
+            while(!gui.awaitBoard(BOARD_WAIT_MILLIS)){
+                if(isPlayerStop) return;
+            }
+            StrokeRaster keyframe = reader.seek(fromMillis);
+            gui.clearCanvas();
+            if(keyframe != null){
+                gui.drawKeyframe(keyframe);
+            }
+            gui.drawSeparator();
+            long begin = System.nanoTime();
+            int events = 0;
+            while(!isPlayerStop && reader.next()){
+                // events before the start point are drawn at once
+                if(reader.time() > fromMillis){
+                    waitUntil(begin + (long) ((reader.time() - fromMillis) * 1000000L / speed));
+                }
+                if(reader.isSeparator()){
+                    gui.drawSeparator();
+                }else{
+                    gui.drawPoint(reader.x(), reader.y());
+                }
+                events++;
+            }
+            gui.drawSeparator();
+            logger.info("played {} events in {} ms", events, (System.nanoTime() - begin) / 1000000);
+        }catch (IOException | IllegalArgumentException e){
+            logger.warn("cannot play recording", e);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void stop(){
+        isPlayerStop = true;
+    }
+
+    private void waitUntil(long deadline){
+        long wait;
+        while(!isPlayerStop && (wait = deadline - System.nanoTime()) > 0){
+            LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    static double parseSpeed(String arg){
+        return "instant".equals(arg) ? INSTANT : Double.parseDouble(arg);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException{
+        double speed = args.length > 1 ? parseSpeed(args[1]) : REAL_TIME;
+        int fromMillis = args.length > 2 ? (int) (Double.parseDouble(args[2]) * 1000) : 0;
+        RoundReader reader = new RoundReader(new File(args[0]));
+        logger.info("room {}, drawer {}, word {}, {} ms in {} chunks", reader.getRoomId(), reader.getDrawerId(),
+                reader.getWord(), reader.getDuration(), reader.getChunkCount());
+
+        // a board nobody draws on, the player is its only source of points
+        GameState gameState = new GameState();
+        gameState.startNewGame(reader.getDrawerId(), reader.getWord());
+        GraphicInterface gui = new GraphicInterface();
+        gui.init(null, new GameBoard(gui, gameState));
+
+        RoundPlayer player = new RoundPlayer(reader, gui, speed, fromMillis);
+        Thread playerThread = new Thread(player, "round-player");
+        playerThread.setDaemon(true);
+        playerThread.start();
+        // the board runs on the main thread until its window is closed
+        gui.startBoard();
+        player.stop();
+        playerThread.join(1000);
+        reader.close();
+    }
+}
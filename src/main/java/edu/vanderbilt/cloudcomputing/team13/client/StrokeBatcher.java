@@ -0,0 +1,175 @@
+package edu.vanderbilt.cloudcomputing.team13.client;
+
+import edu.vanderbilt.cloudcomputing.team13.util.CurveFitter;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeEncoder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Collects the drawer's points and hands them to the client as one CliNewPoints frame.
+ * A batch is flushed when it holds maxPoints points, when maxDelayMs has passed since its first point,
+ * or right after a stroke separator. Frames are sent one after another on a single thread,
+ * so points and separators reach the server in the order they were drawn.
+ *
+ * With a curve error above zero the batcher sends CliNewCurves instead: the raw points of a batch are fitted with
+ * cubic Bezier segments within that many pixels (see CurveFitter) and only the control points are sent.
+ * Each batch of a stroke starts at the last point of the previous one, so receivers can join the pieces.
+ */
+public class StrokeBatcher {
+    private static final Logger logger = LogManager.getLogger(StrokeBatcher.class.getName());
+
+    public static final int DEFAULT_MAX_POINTS = 64;
+    public static final long DEFAULT_MAX_DELAY_MS = 16;
+
+    private final int roomId;
+    private final int maxPoints;
+    private final long maxDelayMs;
+    // sends one encoded frame to the server, always called from the sender thread
+    private final Consumer<byte[]> sink;
+    private final ScheduledExecutorService sender;
+
+    // pending points, encoded as they arrive
+    private final StrokeEncoder encoder;
+
+    // curve mode only: raw points of the current piece as x, y pairs, and where the previous piece ended
+    private final CurveFitter curveFitter;
+    private final double[] rawPoints;
+    private int rawCount = 0;
+    private boolean hasAnchor = false;
+    private double anchorX;
+    private double anchorY;
+    // bumped on every flush so that a stale timer does not cut the next batch short
+    private long batchGeneration = 0;
+    private boolean isTimerArmed = false;
+
+    public StrokeBatcher(int roomId, Consumer<byte[]> sink){
+        this(roomId, sink, DEFAULT_MAX_POINTS, DEFAULT_MAX_DELAY_MS, 0);
+    }
+
+    public StrokeBatcher(int roomId, Consumer<byte[]> sink, double curveError){
+        this(roomId, sink, DEFAULT_MAX_POINTS, DEFAULT_MAX_DELAY_MS, curveError);
+    }
+
+    public StrokeBatcher(int roomId, Consumer<byte[]> sink, int maxPoints, long maxDelayMs, double curveError){
+        if(maxPoints < 1 || maxPoints > MessageCodec.MAX_BATCH_POINTS){
+            throw new IllegalArgumentException("invalid batch size: " + maxPoints);
+        }
+        this.roomId = roomId;
+        this.sink = sink;
+        this.maxPoints = maxPoints;
+        this.maxDelayMs = maxDelayMs;
+        this.encoder = new StrokeEncoder(maxPoints * 2 + 4);
+        this.curveFitter = curveError > 0 ? new CurveFitter(curveError) : null;
+        // one extra slot for the anchor of the piece
+        this.rawPoints = curveFitter == null ? null : new double[(maxPoints + 1) * 2];
+        this.sender = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stroke-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public synchronized void addPoint(double x, double y){
+        if(curveFitter == null){
+            encoder.addPoint(x, y);
+        }else{
+            rawPoints[rawCount * 2] = x;
+            rawPoints[rawCount * 2 + 1] = y;
+            rawCount++;
+        }
+        if(pendingCount() >= maxPoints){
+            flushLocked();
+        }else if(!isTimerArmed){
+            isTimerArmed = true;
+            final long generation = batchGeneration;
+            sender.schedule(() -> flushIfGeneration(generation), maxDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // a separator closes or opens a stroke, flush right away so the stroke edge is not delayed
+    public synchronized void addSeparator(){
+        if(curveFitter != null){
+            fitPendingLocked();
+            hasAnchor = false;
+        }
+        encoder.addSeparator();
+        flushLocked();
+    }
+
+    public synchronized void flush(){
+        if(pendingCount() > 0) flushLocked();
+    }
+
+    public void stop(){
+        flush();
+        sender.shutdown();
+    }
+
+    // stop, then wait until every flushed frame has been handed to the sink; false on timeout
+    public boolean stopAndWait(long timeoutMs) throws InterruptedException{
+        flush();
+        // frames run in order, delayed flushes still scheduled would only find nothing pending
+        Future<?> sent = sender.submit(() -> { });
+        sender.shutdown();
+        try{
+            sent.get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        }catch (ExecutionException | TimeoutException e){
+            return false;
+        }
+    }
+
+    private synchronized void flushIfGeneration(long generation){
+        if(generation == batchGeneration && pendingCount() > 0){
+            flushLocked();
+        }
+    }
+
+    // must hold the monitor, submitting under it keeps frames in drawing order
+    private void flushLocked(){
+        if(curveFitter != null) fitPendingLocked();
+        byte opcode = curveFitter == null ? MessageCodec.CLI_NEW_POINTS : MessageCodec.CLI_NEW_CURVES;
+        final byte[] frame = encoder.toFrame(opcode, roomId);
+        logger.debug("flushing {} points in {} bytes", encoder.getCount(), encoder.size());
+        encoder.reset();
+        batchGeneration++;
+        isTimerArmed = false;
+        sender.execute(() -> sink.accept(frame));
+    }
+
+    private int pendingCount(){
+        return encoder.getCount() + rawCount;
+    }
+
+    // curve mode: replace the raw points of the current piece by their control points
+    private void fitPendingLocked(){
+        if(rawCount == 0) return;
+        double[] piece = rawPoints;
+        int n = rawCount;
+        if(hasAnchor){
+            piece = new double[(rawCount + 1) * 2];
+            piece[0] = anchorX;
+            piece[1] = anchorY;
+            System.arraycopy(rawPoints, 0, piece, 2, rawCount * 2);
+            n++;
+        }
+        double[] ctrl = curveFitter.fit(piece, n);
+        for(int i = 0; i < ctrl.length; i += 2){
+            encoder.addPoint(ctrl[i], ctrl[i + 1]);
+        }
+        logger.debug("fitted {} points with {} control points", n, ctrl.length / 2);
+        hasAnchor = true;
+        anchorX = rawPoints[(rawCount - 1) * 2];
+        anchorY = rawPoints[(rawCount - 1) * 2 + 1];
+        rawCount = 0;
+    }
+}
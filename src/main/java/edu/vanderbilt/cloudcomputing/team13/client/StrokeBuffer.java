@@ -0,0 +1,99 @@
+package edu.vanderbilt.cloudcomputing.team13.client;
+
+import java.util.Arrays;
+
+/**
+ * The points of a drawing, packed into a growable float array, with a separate index of where every stroke starts.
+ * A point costs 8 bytes instead of two boxed Doubles, and strokes need no null separators.
+ *
+ * Points are appended by the network threads and read by the render thread. Writers are synchronized,
+ * a reader on another thread holds the buffer's monitor while it walks the points:
+ *
+ *   synchronized (buffer){
+ *       for(int s = 0; s < buffer.getStrokeCount(); s++)
+ *           for(int i = buffer.strokeStart(s); i < buffer.strokeEnd(s); i++) ... buffer.x(i), buffer.y(i)
+ *   }
+ */
+public class StrokeBuffer {
+    private float[] coords;
+    private int size = 0;
+    private int[] strokeStarts;
+    private int strokeCount = 0;
+    // a separator closes the stroke, the next point opens a new one
+    private boolean isStrokeOpen = false;
+    // bumped on every clear, lets a reader tell a cleared buffer from one that only grew
+    private int clearCount = 0;
+
+    public StrokeBuffer(){
+        this(1024);
+    }
+
+    public StrokeBuffer(int initialPoints){
+        coords = new float[Math.max(initialPoints, 16) * 2];
+        strokeStarts = new int[16];
+    }
+
+    public synchronized void addPoint(double x, double y){
+        if(!isStrokeOpen){
+            if(strokeCount == strokeStarts.length){
+                strokeStarts = Arrays.copyOf(strokeStarts, strokeCount * 2);
+            }
+            strokeStarts[strokeCount++] = size;
+            isStrokeOpen = true;
+        }
+        if(size * 2 + 2 > coords.length){
+            coords = Arrays.copyOf(coords, coords.length * 2);
+        }
+        coords[size * 2] = (float) x;
+        coords[size * 2 + 1] = (float) y;
+        size++;
+    }
+
+    public synchronized void endStroke(){
+        isStrokeOpen = false;
+    }
+
+    public synchronized void clear(){
+        size = 0;
+        strokeCount = 0;
+        isStrokeOpen = false;
+        clearCount++;
+    }
+
+    // whether the next point continues the last stroke
+    public synchronized boolean hasOpenStroke(){
+        return isStrokeOpen;
+    }
+
+    /**
+     * lookups, hold the monitor when reading from another thread
+     */
+
+    public int size(){
+        return size;
+    }
+
+    public int getStrokeCount(){
+        return strokeCount;
+    }
+
+    public int strokeStart(int stroke){
+        return strokeStarts[stroke];
+    }
+
+    public int strokeEnd(int stroke){
+        return stroke + 1 < strokeCount ? strokeStarts[stroke + 1] : size;
+    }
+
+    public float x(int index){
+        return coords[index * 2];
+    }
+
+    public float y(int index){
+        return coords[index * 2 + 1];
+    }
+
+    public int getClearCount(){
+        return clearCount;
+    }
+}
@@ -0,0 +1,125 @@
+package edu.vanderbilt.cloudcomputing.team13.client;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Memory and walk cost of StrokeBuffer against the List<Double> with null pairs as separators that GameBoard used
+ * to keep, runnable without a benchmark harness. The same drawing, random strokes of one pixel steps as the makeup
+ * points made them, is stored both ways. Each run reports the heap it keeps, measured from the used heap after
+ * garbage collections and so only approximate, and the nanoseconds per point and bytes allocated of walking it the
+ * way the renderer does. Walking the buffer must not allocate, otherwise the check fails and it exits with status 1.
+ *
+ *   StrokeBufferBench [points] [pointsPerStroke] [runs]
+ */
+public class StrokeBufferBench {
+    private static final Logger logger = LogManager.getLogger(StrokeBufferBench.class.getName());
+
+    // what the walks read, so they are not optimised away
+    private static double sink = 0;
+
+    public static void main(String[] args){
+        int points = args.length > 0 ? Integer.parseInt(args[0]) : 300000;
+        int pointsPerStroke = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        double[] coords = new double[points * 2];
+        Random random = new Random(9);
+        double x = 0;
+        double y = 0;
+        for(int i = 0; i < points; i++){
+            if(i % pointsPerStroke == 0){
+                x = random.nextInt(800);
+                y = random.nextInt(600);
+            }
+            double angle = random.nextDouble() * 2 * Math.PI;
+            x += Math.cos(angle);
+            y += Math.sin(angle);
+            coords[i * 2] = x;
+            coords[i * 2 + 1] = y;
+        }
+
+        // what reading the counter itself allocates
+        long bytes = allocatedBytes();
+        long counterBytes = allocatedBytes() - bytes;
+
+        int failures = 0;
+        for(int run = 0; run < runs; run++){
+            long heap = usedHeap();
+            List<Double> list = new ArrayList<>();
+            for(int i = 0; i < points; i++){
+                if(i % pointsPerStroke == 0 && i > 0){
+                    list.add(null);
+                    list.add(null);
+                }
+                list.add(coords[i * 2]);
+                list.add(coords[i * 2 + 1]);
+            }
+            long listHeap = usedHeap() - heap;
+
+            heap = usedHeap();
+            StrokeBuffer buffer = new StrokeBuffer();
+            for(int i = 0; i < points; i++){
+                if(i % pointsPerStroke == 0) buffer.endStroke();
+                buffer.addPoint(coords[i * 2], coords[i * 2 + 1]);
+            }
+            long bufferHeap = usedHeap() - heap;
+
+            bytes = allocatedBytes();
+            long begin = System.nanoTime();
+            for(int i = 0; i + 1 < list.size(); i += 2){
+                Double px = list.get(i);
+                if(px != null) sink += px + list.get(i + 1);
+            }
+            long listNanos = System.nanoTime() - begin;
+            long listBytes = allocatedBytes() - bytes - counterBytes;
+
+            bytes = allocatedBytes();
+            begin = System.nanoTime();
+            synchronized (buffer){
+                for(int s = 0; s < buffer.getStrokeCount(); s++){
+                    for(int i = buffer.strokeStart(s); i < buffer.strokeEnd(s); i++){
+                        sink += buffer.x(i) + buffer.y(i);
+                    }
+                }
+            }
+            long bufferNanos = System.nanoTime() - begin;
+            long bufferBytes = allocatedBytes() - bytes - counterBytes;
+
+            logger.info("run {}: List<Double> {} bytes per point kept, walk {} ns per point and {} bytes; "
+                            + "StrokeBuffer {} bytes per point kept, walk {} ns per point and {} bytes", run,
+                    String.format("%.1f", listHeap / (double) points), String.format("%.2f", listNanos / (double) points),
+                    listBytes, String.format("%.1f", bufferHeap / (double) points),
+                    String.format("%.2f", bufferNanos / (double) points), bufferBytes);
+            if(bufferBytes > 0){
+                logger.error("failed: walking the StrokeBuffer allocated {} bytes", bufferBytes);
+                failures++;
+            }
+            list.clear();
+        }
+        logger.debug("checksum {}", sink);
+        if(failures > 0) System.exit(1);
+    }
+
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 5; i++){
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // -1 where the JVM does not count allocations per thread
+    private static long allocatedBytes(){
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if(threads instanceof com.sun.management.ThreadMXBean){
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,144 @@
+package edu.vanderbilt.cloudcomputing.team13.client;
+
+import edu.vanderbilt.cloudcomputing.team13.util.CanvasSpec;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+
+/**
+ * Keeps the strokes of a StrokeBuffer as triangles in a vertex buffer object.
+ * New samples are tessellated (see StrokeTessellator) and only the vertices they add are uploaded,
+ * any range of them is a single glDrawArrays. The buffer is re-uploaded only when it has to grow
+ * or the canvas was cleared.
+ *
+ * Must be created and used on the thread owning the GL context.
+ */
+public class StrokeRenderer {
+    private final StrokeBuffer strokeBuffer;
+    private final StrokeTessellator tessellator;
+    private int vbo = 0;
+    // in vertices
+    private int capacity = 0;
+    private int uploaded = 0;
+    private int seenClearCount;
+    // how far the stroke buffer has been tessellated
+    private int tessellatedStroke = 0;
+    private int tessellatedPoint = 0;
+
+    // vertices copied out of the tessellator, uploaded in one call
+    private FloatBuffer staging = BufferUtils.createFloatBuffer(4096);
+
+    public StrokeRenderer(StrokeBuffer strokeBuffer){
+        this(strokeBuffer, CanvasSpec.BRUSH_WIDTH);
+    }
+
+    public StrokeRenderer(StrokeBuffer strokeBuffer, double brushWidth){
+        this.strokeBuffer = strokeBuffer;
+        this.tessellator = new StrokeTessellator(brushWidth);
+        this.seenClearCount = strokeBuffer.getClearCount();
+    }
+
+    public void init(){
+        vbo = glGenBuffers();
+        allocate(4096);
+    }
+
+    // tessellate and upload the new samples, returns whether the buffer was cleared since the last sync
+    public boolean sync(){
+        boolean isCleared = tessellate();
+        upload();
+        return isCleared;
+    }
+
+    public void render(int windowHeight){
+        sync();
+        draw(0, uploaded, windowHeight);
+    }
+
+    // draw the uploaded vertices [from, to)
+    public void draw(int from, int to, int windowHeight){
+        if(from >= to) return;
+
+        glPushMatrix();
+        // strokes are stored in window coordinates, y pointing down
+        glTranslatef(0, windowHeight, 0);
+        glScalef(1, -1, 1);
+        glColor3f(0, 0, 0);
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glVertexPointer(2, GL_FLOAT, 0, 0L);
+        glDrawArrays(GL_TRIANGLES, from, to - from);
+        glDisableClientState(GL_VERTEX_ARRAY);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glPopMatrix();
+    }
+
+    public void delete(){
+        if(vbo != 0){
+            glDeleteBuffers(vbo);
+            vbo = 0;
+        }
+    }
+
+    public int getUploadedVertices(){
+        return uploaded;
+    }
+
+    // feed the samples added since the last sync to the tessellator, under the buffer's monitor
+    private boolean tessellate(){
+        boolean isCleared = false;
+        synchronized (strokeBuffer){
+            if(strokeBuffer.getClearCount() != seenClearCount){
+                seenClearCount = strokeBuffer.getClearCount();
+                tessellator.clear();
+                tessellatedStroke = 0;
+                tessellatedPoint = 0;
+                uploaded = 0;
+                isCleared = true;
+            }
+            while(tessellatedStroke < strokeBuffer.getStrokeCount()){
+                int end = strokeBuffer.strokeEnd(tessellatedStroke);
+                for(int i = Math.max(tessellatedPoint, strokeBuffer.strokeStart(tessellatedStroke)); i < end; i++){
+                    tessellator.addPoint(strokeBuffer.x(i), strokeBuffer.y(i));
+                }
+                tessellatedPoint = end;
+                // the last stroke may still be drawn, its end cap comes once it is closed
+                boolean isClosed = tessellatedStroke + 1 < strokeBuffer.getStrokeCount() || !strokeBuffer.hasOpenStroke();
+                if(!isClosed) break;
+                tessellator.endStroke();
+                tessellatedStroke++;
+            }
+        }
+        return isCleared;
+    }
+
+    private void upload(){
+        int to = tessellator.getVertexCount();
+        // a grown buffer is refilled from the start
+        int from = to > capacity ? 0 : uploaded;
+        if(from == to) return;
+        staging.clear();
+        if(staging.capacity() < (to - from) * 2){
+            staging = BufferUtils.createFloatBuffer(Integer.highestOneBit((to - from) * 2) * 2);
+        }
+        staging.put(tessellator.getVertices(), from * 2, (to - from) * 2);
+        staging.flip();
+
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        if(to > capacity){
+            allocate(Math.max(capacity * 2, Integer.highestOneBit(to) * 2));
+        }
+        glBufferSubData(GL_ARRAY_BUFFER, from * 2L * Float.BYTES, staging);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        uploaded = to;
+    }
+
+    private void allocate(int vertices){
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        glBufferData(GL_ARRAY_BUFFER, vertices * 2L * Float.BYTES, GL_DYNAMIC_DRAW);
+        capacity = vertices;
+    }
+}
@@ -0,0 +1,142 @@
+package edu.vanderbilt.cloudcomputing.team13.client;
+
+import java.util.Arrays;
+
+/**
+ * Turns the raw samples of strokes into thick line geometry, as GL_TRIANGLES in x, y pairs:
+ * a quad per segment, a round join on the outer side of every turn and round caps at both ends.
+ * Geometry grows with the number of samples instead of with the length of the stroke in pixels.
+ *
+ * Output is append-only: a sample adds its join and segment, closing a stroke adds its end cap,
+ * so a renderer can upload and rasterise just the vertices added since it last looked.
+ */
+public class StrokeTessellator {
+    // how far an arc may stray from the true circle, in pixels
+    private static final double ARC_TOLERANCE = 0.25;
+    // samples closer than this to the previous one have no direction and are skipped
+    private static final double MIN_SEGMENT = 1e-3;
+
+    private final double halfWidth;
+    // largest angle covered by one triangle of an arc
+    private final double arcStep;
+
+    private float[] vertices = new float[4096];
+    private int vertexCount = 0;
+
+    // the stroke being built
+    private int strokePoints = 0;
+    private double prevX;
+    private double prevY;
+    private double prevDirX;
+    private double prevDirY;
+
+    public StrokeTessellator(double brushWidth){
+        if(brushWidth <= 0){
+            throw new IllegalArgumentException("invalid brush width: " + brushWidth);
+        }
+        this.halfWidth = brushWidth / 2;
+        this.arcStep = halfWidth <= ARC_TOLERANCE ? Math.PI / 2 : 2 * Math.acos(1 - ARC_TOLERANCE / halfWidth);
+    }
+
+    public void addPoint(double x, double y){
+        if(strokePoints == 0){
+            prevX = x;
+            prevY = y;
+            strokePoints = 1;
+            return;
+        }
+        double dx = x - prevX;
+        double dy = y - prevY;
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if(length < MIN_SEGMENT) return;
+        dx /= length;
+        dy /= length;
+
+        if(strokePoints == 1){
+            // start cap, the half circle behind the first sample: left normal through -d to the right normal
+            arc(prevX, prevY, -dy, dx, Math.PI);
+        }else{
+            join(prevX, prevY, prevDirX, prevDirY, dx, dy);
+        }
+        segment(prevX, prevY, x, y, dx, dy);
+
+        prevX = x;
+        prevY = y;
+        prevDirX = dx;
+        prevDirY = dy;
+        strokePoints++;
+    }
+
+    public void endStroke(){
+        if(strokePoints == 1){
+            // a single click is a dot
+            arc(prevX, prevY, 1, 0, 2 * Math.PI);
+        }else if(strokePoints > 1){
+            // end cap, the half circle ahead of the last sample: right normal through d to the left normal
+            arc(prevX, prevY, prevDirY, -prevDirX, Math.PI);
+        }
+        strokePoints = 0;
+    }
+
+    public void clear(){
+        vertexCount = 0;
+        strokePoints = 0;
+    }
+
+    public int getVertexCount(){
+        return vertexCount;
+    }
+
+    public float[] getVertices(){
+        return vertices;
+    }
+
+    // the gap on the outer side of a turn, filled with an arc between the two segment edges
+    private void join(double x, double y, double d0x, double d0y, double d1x, double d1y){
+        double cross = d0x * d1y - d0y * d1x;
+        double dot = d0x * d1x + d0y * d1y;
+        double turn = Math.atan2(cross, dot);
+        if(Math.abs(turn) * halfWidth < ARC_TOLERANCE) return;
+        // the edge away from the turn, the left normal is (-dy, dx)
+        double side = turn > 0 ? -1 : 1;
+        arc(x, y, -d0y * side, d0x * side, turn);
+    }
+
+    private void segment(double x0, double y0, double x1, double y1, double dx, double dy){
+        double nx = -dy * halfWidth;
+        double ny = dx * halfWidth;
+        triangle(x0 + nx, y0 + ny, x0 - nx, y0 - ny, x1 - nx, y1 - ny);
+        triangle(x0 + nx, y0 + ny, x1 - nx, y1 - ny, x1 + nx, y1 + ny);
+    }
+
+    // a fan around x, y starting at the unit vector u and rotating by sweep radians
+    private void arc(double x, double y, double ux, double uy, double sweep){
+        int steps = Math.max(1, (int) Math.ceil(Math.abs(sweep) / arcStep));
+        double step = sweep / steps;
+        double cos = Math.cos(step);
+        double sin = Math.sin(step);
+        double ax = ux * halfWidth;
+        double ay = uy * halfWidth;
+        for(int i = 0; i < steps; i++){
+            double bx = ax * cos - ay * sin;
+            double by = ax * sin + ay * cos;
+            triangle(x, y, x + ax, y + ay, x + bx, y + by);
+            ax = bx;
+            ay = by;
+        }
+    }
+
+    private void triangle(double x0, double y0, double x1, double y1, double x2, double y2){
+        if(vertexCount * 2 + 6 > vertices.length){
+            vertices = Arrays.copyOf(vertices, vertices.length * 2);
+        }
+        int i = vertexCount * 2;
+        vertices[i] = (float) x0;
+        vertices[i + 1] = (float) y0;
+        vertices[i + 2] = (float) x1;
+        vertices[i + 3] = (float) y1;
+        vertices[i + 4] = (float) x2;
+        vertices[i + 5] = (float) y2;
+        vertexCount += 3;
+    }
+}
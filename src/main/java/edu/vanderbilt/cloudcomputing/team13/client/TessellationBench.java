@@ -0,0 +1,125 @@
+package edu.vanderbilt.cloudcomputing.team13.client;
+
+import edu.vanderbilt.cloudcomputing.team13.util.CanvasSpec;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Vertex count and look of StrokeTessellator against the makeup points GameBoard used to draw, runnable without a
+ * benchmark harness. Random strokes of samples 3 to 15 px apart are drawn both ways: the old way adds a point every
+ * pixel between two samples and draws each one as a 4x4 quad, the new way tessellates the samples with the default
+ * brush. Both are rasterised at pixel centres on the canvas, and the share of pixels both cover among those either
+ * covers tells how alike they look. Below MIN_OVERLAP the check fails and it exits with status 1.
+ *
+ *   TessellationBench [strokes] [seed]
+ */
+public class TessellationBench {
+    private static final Logger logger = LogManager.getLogger(TessellationBench.class.getName());
+
+    // a round brush and square points differ along diagonals, the rest should be the same pixels
+    private static final double MIN_OVERLAP = 0.75;
+    // half the side of an old point's quad
+    private static final int OLD_POINT_OFFSET = 2;
+
+    private final BitSet oldPixels = new BitSet(CanvasSpec.WIDTH * CanvasSpec.HEIGHT);
+    private final BitSet newPixels = new BitSet(CanvasSpec.WIDTH * CanvasSpec.HEIGHT);
+
+    // the quad of GameBoard's renderOnePoint
+    private void drawOldPoint(double x, double y){
+        fill(oldPixels, x - OLD_POINT_OFFSET, y - OLD_POINT_OFFSET, x + OLD_POINT_OFFSET, y + OLD_POINT_OFFSET);
+    }
+
+    private static void fill(BitSet pixels, double minX, double minY, double maxX, double maxY){
+        for(int py = Math.max(0, (int) Math.ceil(minY - 0.5)); py < CanvasSpec.HEIGHT && py + 0.5 < maxY; py++){
+            for(int px = Math.max(0, (int) Math.ceil(minX - 0.5)); px < CanvasSpec.WIDTH && px + 0.5 < maxX; px++){
+                pixels.set(py * CanvasSpec.WIDTH + px);
+            }
+        }
+    }
+
+    private void drawTriangles(float[] vertices, int vertexCount){
+        for(int v = 0; v + 2 < vertexCount; v += 3){
+            double ax = vertices[v * 2];
+            double ay = vertices[v * 2 + 1];
+            double bx = vertices[v * 2 + 2];
+            double by = vertices[v * 2 + 3];
+            double cx = vertices[v * 2 + 4];
+            double cy = vertices[v * 2 + 5];
+            double area = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+            if(area == 0) continue;
+            int minX = Math.max(0, (int) Math.floor(Math.min(ax, Math.min(bx, cx))));
+            int maxX = Math.min(CanvasSpec.WIDTH - 1, (int) Math.ceil(Math.max(ax, Math.max(bx, cx))));
+            int minY = Math.max(0, (int) Math.floor(Math.min(ay, Math.min(by, cy))));
+            int maxY = Math.min(CanvasSpec.HEIGHT - 1, (int) Math.ceil(Math.max(ay, Math.max(by, cy))));
+            for(int py = minY; py <= maxY; py++){
+                for(int px = minX; px <= maxX; px++){
+                    double x = px + 0.5;
+                    double y = py + 0.5;
+                    // same sign as the area on all three edges, whichever way the triangle winds
+                    double e0 = ((bx - ax) * (y - ay) - (by - ay) * (x - ax)) * area;
+                    double e1 = ((cx - bx) * (y - by) - (cy - by) * (x - bx)) * area;
+                    double e2 = ((ax - cx) * (y - cy) - (ay - cy) * (x - cx)) * area;
+                    if(e0 >= 0 && e1 >= 0 && e2 >= 0) newPixels.set(py * CanvasSpec.WIDTH + px);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args){
+        int strokes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 7;
+
+        TessellationBench bench = new TessellationBench();
+        StrokeTessellator tessellator = new StrokeTessellator(CanvasSpec.BRUSH_WIDTH);
+        Random random = new Random(seed);
+        long samples = 0;
+        long oldPoints = 0;
+        for(int stroke = 0; stroke < strokes; stroke++){
+            double x = 100 + random.nextDouble() * 600;
+            double y = 100 + random.nextDouble() * 400;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            int count = 20 + random.nextInt(60);
+            double prevX = 0;
+            double prevY = 0;
+            for(int i = 0; i < count; i++){
+                angle += (random.nextDouble() - 0.5) * 0.6;
+                double step = 3 + random.nextDouble() * 12;
+                x += Math.cos(angle) * step;
+                y += Math.sin(angle) * step;
+                tessellator.addPoint(x, y);
+                samples++;
+                if(i > 0){
+                    // GameBoard's addMakeupPoints with a smoothThreshold of 1 px
+                    int num = (int) Math.floor(Math.hypot(x - prevX, y - prevY));
+                    for(int k = 1; k <= num - 1; k++){
+                        bench.drawOldPoint(prevX + (x - prevX) / num * k, prevY + (y - prevY) / num * k);
+                        oldPoints++;
+                    }
+                }
+                bench.drawOldPoint(x, y);
+                oldPoints++;
+                prevX = x;
+                prevY = y;
+            }
+            tessellator.endStroke();
+        }
+        bench.drawTriangles(tessellator.getVertices(), tessellator.getVertexCount());
+
+        BitSet both = (BitSet) bench.oldPixels.clone();
+        both.and(bench.newPixels);
+        BitSet either = (BitSet) bench.oldPixels.clone();
+        either.or(bench.newPixels);
+        double overlap = both.cardinality() / (double) either.cardinality();
+        logger.info("{} strokes, {} samples: makeup points {} ({} quad vertices), tessellated {} vertices ({} per "
+                        + "sample); {} old and {} new pixels, overlap {}", strokes, samples, oldPoints, oldPoints * 4,
+                tessellator.getVertexCount(), String.format("%.1f", tessellator.getVertexCount() / (double) samples),
+                bench.oldPixels.cardinality(), bench.newPixels.cardinality(), String.format("%.3f", overlap));
+        if(overlap < MIN_OVERLAP){
+            logger.error("failed: overlap {} under {}", overlap, MIN_OVERLAP);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package edu.vanderbilt.cloudcomputing.team13.client;
+
+import edu.vanderbilt.cloudcomputing.team13.server.Publisher;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageWriter;
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeEncoder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.zeromq.ZMQ;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bytes each client receives with room subscriptions and with the topics clients take now, runnable without a
+ * benchmark harness. A Publisher is started on its own port and every room publishes a ServerNewGame, framesPerRoom
+ * ServerNewPoints of 64 points and a ServerNewWinner, while a drawer and a guesser listen to room 0. First both
+ * subscribe to the whole room, then to the topics a client takes (GAME_TOPICS, and INK_TOPICS for the guesser
+ * only). Each run reports messages and bytes per client and the frames the publisher did not send. With topics the
+ * drawer must get no ink, the guesser all of its room and the publisher nothing of the other rooms, otherwise the
+ * check fails and it exits with status 1.
+ *
+ *   TopicBench [rooms] [framesPerRoom] [port]
+ */
+public class TopicBench {
+    private static final Logger logger = LogManager.getLogger(TopicBench.class.getName());
+
+    private static final int LISTENED_ROOM = 0;
+    // publishing pauses after this many frames, so the subscribers' queues never fill up and drop any
+    private static final int PACE_FRAMES = 200;
+    private static final int RECEIVE_TIMEOUT_MILLIS = 500;
+
+    // per room: new game, the point runs, winner
+    private final List<byte[][]> frames = new ArrayList<>();
+
+    private TopicBench(int rooms, int framesPerRoom){
+        Random random = new Random(1);
+        StrokeEncoder encoder = new StrokeEncoder();
+        for(int room = 0; room < rooms; room++){
+            byte[][] roomFrames = new byte[framesPerRoom + 2][];
+            roomFrames[0] = new MessageWriter(MessageCodec.SERVER_NEW_GAME, room).writeString("drawer")
+                    .writeString("cat").toByteArray();
+            for(int i = 1; i <= framesPerRoom; i++){
+                encoder.reset();
+                for(int point = 0; point < 64; point++){
+                    encoder.addPoint(random.nextInt(800), random.nextInt(600));
+                }
+                roomFrames[i] = encoder.toFrame(MessageCodec.SERVER_NEW_POINTS, room);
+            }
+            roomFrames[framesPerRoom + 1] = MessageCodec.encodeWinner(MessageCodec.SERVER_NEW_WINNER, room, "guesser");
+            frames.add(roomFrames);
+        }
+    }
+
+    // {messages, bytes, ink messages} until nothing arrives for a while
+    private static long[] drain(ZMQ.Socket sub){
+        long[] received = new long[3];
+        byte[] frame;
+        while((frame = sub.recv()) != null){
+            received[0]++;
+            received[1] += frame.length;
+            if(MessageCodec.opcode(frame) == MessageCodec.SERVER_NEW_POINTS) received[2]++;
+            while(sub.hasReceiveMore()){
+                received[1] += sub.recv().length;
+            }
+        }
+        return received;
+    }
+
+    /**
+     * publish every room's frames to a drawer and a guesser of LISTENED_ROOM; returns {drawer, guesser} as drain
+     * does and the publisher's unsubscribed count
+     */
+    private long[][] run(ZMQ.Context context, String endpoint, boolean isTopics) throws InterruptedException{
+        Publisher publisher = new Publisher(context, endpoint);
+        publisher.start();
+        ZMQ.Socket drawer = context.socket(ZMQ.SUB);
+        ZMQ.Socket guesser = context.socket(ZMQ.SUB);
+        for(ZMQ.Socket sub : new ZMQ.Socket[]{drawer, guesser}){
+            sub.setReceiveTimeOut(RECEIVE_TIMEOUT_MILLIS);
+            sub.connect(endpoint);
+            if(!isTopics){
+                sub.subscribe(MessageCodec.roomPrefix(LISTENED_ROOM));
+                continue;
+            }
+            for(byte opcode : GameClient.GAME_TOPICS){
+                sub.subscribe(MessageCodec.topic(LISTENED_ROOM, opcode));
+            }
+        }
+        if(isTopics){
+            for(byte opcode : GameClient.INK_TOPICS){
+                guesser.subscribe(MessageCodec.topic(LISTENED_ROOM, opcode));
+            }
+        }
+        // the publisher reads the subscriptions before its next batch
+        Thread.sleep(300);
+
+        int published = 0;
+        for(byte[][] roomFrames : frames){
+            for(int i = 0; i < roomFrames.length; i++){
+                // new game and winner are the first of their opcode, the point runs are the room's ink
+                publisher.publish(roomFrames[i], i == roomFrames.length - 1 ? 1 : i + 1);
+                if(++published % PACE_FRAMES == 0) Thread.sleep(20);
+            }
+        }
+        long[] drawerReceived = drain(drawer);
+        long[] guesserReceived = drain(guesser);
+        long unsubscribed = publisher.getUnsubscribedCount();
+        drawer.close();
+        guesser.close();
+        publisher.stop();
+        return new long[][]{drawerReceived, guesserReceived, {unsubscribed}};
+    }
+
+    public static void main(String[] args) throws InterruptedException{
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int framesPerRoom = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 5601;
+
+        TopicBench bench = new TopicBench(rooms, framesPerRoom);
+        ZMQ.Context context = ZMQ.context(1);
+        int failures = 0;
+        for(int run = 0; run < 2; run++){
+            boolean isTopics = run == 1;
+            long[][] received = bench.run(context, "tcp://127.0.0.1:" + (port + run), isTopics);
+            logger.info("{}: drawer {} messages, {} bytes; guesser {} messages, {} bytes; {} frames not sent",
+                    isTopics ? "topics, the drawer without ink" : "whole room", received[0][0], received[0][1],
+                    received[1][0], received[1][1], received[2][0]);
+            int roomFrames = framesPerRoom + 2;
+            if(received[1][0] != roomFrames){
+                logger.error("failed: the guesser got {} of {} frames of its room", received[1][0], roomFrames);
+                failures++;
+            }
+            if(isTopics && (received[0][2] != 0 || received[0][0] != 2)){
+                logger.error("failed: the drawer got {} ink frames and {} others", received[0][2],
+                        received[0][0] - received[0][2]);
+                failures++;
+            }
+            if(isTopics && received[2][0] != (long) (rooms - 1) * roomFrames){
+                logger.error("failed: the publisher dropped {} frames, the other rooms have {}", received[2][0],
+                        (rooms - 1) * roomFrames);
+                failures++;
+            }
+        }
+        context.term();
+        if(failures > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,112 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Loading and picking cost of the word dictionary, runnable without a benchmark harness. A word list of random
+ * words in 8 categories, a quarter of them with synonyms, is compiled into a temporary file. Each run opens the
+ * file, then picks 100 rounds in each of 20,000 new rooms, 100,000 words in one room, and 100,000 words again
+ * decoding each one, and reports the time per pick. A full pass of one room's picker must deal every word exactly
+ * once, otherwise the check fails and it exits with status 1.
+ *
+ *   DictionaryBench [words] [runs]
+ */
+public class DictionaryBench {
+    private static final Logger logger = LogManager.getLogger(DictionaryBench.class.getName());
+
+    private static final String[] CATEGORIES = {"animals", "food", "objects", "places", "actions", "sports", "music",
+            "nature"};
+    private static final int ROOMS = 20000;
+    private static final int ROUNDS_PER_ROOM = 100;
+    private static final int PICKS = 100000;
+
+    private static String wordList(int words){
+        Random random = new Random(7);
+        StringBuilder list = new StringBuilder("# word\tcategory\tdifficulty\tsynonyms\n");
+        StringBuilder word = new StringBuilder();
+        for(int i = 0; i < words; i++){
+            word.setLength(0);
+            for(int length = 4 + random.nextInt(8); length > 0; length--){
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            list.append(word).append('\t').append(CATEGORIES[random.nextInt(CATEGORIES.length)]).append('\t')
+                    .append(1 + random.nextInt(3)).append('\t');
+            if(random.nextInt(4) == 0) list.append(word).append("s,").append(word).append('y');
+            list.append('\n');
+        }
+        return list.toString();
+    }
+
+    public static void main(String[] args) throws IOException{
+        int words = args.length > 0 ? Integer.parseInt(args[0]) : 300000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        String list = wordList(words);
+        long begin = System.nanoTime();
+        byte[] compiled = WordDictionary.compile(new BufferedReader(new StringReader(list)));
+        long compileNanos = System.nanoTime() - begin;
+        File file = File.createTempFile("dictionarybench", ".dict");
+        file.deleteOnExit();
+        Files.write(file.toPath(), compiled);
+        logger.info("{} words: {} bytes as text, {} bytes compiled in {} ms", words, list.length(), compiled.length,
+                compileNanos / 1000000);
+
+        WordDictionary dictionary = WordDictionary.open(file);
+        BitSet dealt = new BitSet(dictionary.getWordCount());
+        WordPicker picker = new WordPicker(dictionary);
+        int repeats = 0;
+        for(int i = 0; i < dictionary.getWordCount(); i++){
+            int index = picker.next();
+            if(dealt.get(index)) repeats++;
+            dealt.set(index);
+        }
+        if(repeats > 0 || dealt.cardinality() != words){
+            logger.error("failed: a full pass dealt {} of {} words, {} repeated", dealt.cardinality(), words, repeats);
+            System.exit(1);
+        }
+
+        long sink = 0;
+        for(int run = 0; run < runs; run++){
+            begin = System.nanoTime();
+            dictionary = WordDictionary.open(file);
+            long openNanos = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            for(int room = 0; room < ROOMS; room++){
+                picker = new WordPicker(dictionary);
+                for(int round = 0; round < ROUNDS_PER_ROOM; round++){
+                    sink += picker.next();
+                }
+            }
+            long roomsNanos = System.nanoTime() - begin;
+
+            picker = new WordPicker(dictionary);
+            begin = System.nanoTime();
+            for(int i = 0; i < PICKS; i++){
+                sink += picker.next();
+            }
+            long pickNanos = System.nanoTime() - begin;
+
+            begin = System.nanoTime();
+            for(int i = 0; i < PICKS; i++){
+                sink += dictionary.word(picker.next()).length();
+            }
+            long wordNanos = System.nanoTime() - begin;
+
+            logger.info("run {}: open {} us; pick {} ns with {} rounds per room, {} ns in one room, {} ns with the "
+                            + "word decoded", run, String.format("%.1f", openNanos / 1e3), roomsNanos / (ROOMS * ROUNDS_PER_ROOM),
+                    ROUNDS_PER_ROOM, pickNanos / PICKS, wordNanos / PICKS);
+        }
+        logger.debug("checksum {}", sink);
+        file.delete();
+    }
+}
@@ -0,0 +1,91 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of the event loops as their number grows, runnable without a benchmark harness. One thread submits
+ * room tasks round-robin over the rooms, as the responder does, to groups of 1, 2, 4 ... loops; each task works for
+ * about as long as a point handler and checks that its room's tasks run in submit order and always on the same
+ * thread. Each run reports tasks per second, the speedup over one loop, and the loop metrics. The speedup can only
+ * follow the loops up to the number of cores. A task out of order or on another thread exits with status 1.
+ *
+ *   EventLoopBench [maxLoops] [tasksPerRun] [rooms]
+ */
+public class EventLoopBench {
+    private static final Logger logger = LogManager.getLogger(EventLoopBench.class.getName());
+
+    // iterations of a random generator per task, about a microsecond
+    private static final int WORK = 300;
+    // longs between two rooms' state, so rooms of different loops do not share a cache line
+    private static final int PAD = 8;
+
+    private final long[] state;
+    private final int[] nextSequence;
+    private final Thread[] owners;
+    private final AtomicInteger violations = new AtomicInteger(0);
+
+    private EventLoopBench(int rooms){
+        state = new long[rooms * PAD];
+        nextSequence = new int[rooms * PAD];
+        owners = new Thread[rooms];
+    }
+
+    // runs on the room's loop
+    private void handle(int room, int sequence, CountDownLatch lastTasks, boolean isLast){
+        if(owners[room] == null) owners[room] = Thread.currentThread();
+        if(owners[room] != Thread.currentThread() || nextSequence[room * PAD] != sequence){
+            violations.incrementAndGet();
+        }
+        nextSequence[room * PAD] = sequence + 1;
+        long x = state[room * PAD];
+        for(int i = 0; i < WORK; i++){
+            x = x * 6364136223846793005L + 1442695040888963407L;
+        }
+        state[room * PAD] = x;
+        if(isLast) lastTasks.countDown();
+    }
+
+    public static void main(String[] args) throws InterruptedException{
+        int maxLoops = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+        int rooms = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        if(tasks < rooms){
+            throw new IllegalArgumentException("fewer tasks than rooms: " + tasks);
+        }
+        logger.info("{} cores, {} tasks over {} rooms per run", Runtime.getRuntime().availableProcessors(), tasks,
+                rooms);
+
+        int failures = 0;
+        double oneLoopRate = 0;
+        for(int loops = 1; loops <= maxLoops; loops = loops * 2 > maxLoops && loops < maxLoops ? maxLoops : loops * 2){
+            EventLoopBench bench = new EventLoopBench(rooms);
+            EventLoopGroup group = new EventLoopGroup(loops);
+            group.start();
+            CountDownLatch lastTasks = new CountDownLatch(rooms);
+            long begin = System.nanoTime();
+            for(int i = 0; i < tasks; i++){
+                int room = i % rooms;
+                int sequence = i / rooms;
+                boolean isLast = i >= tasks - rooms;
+                group.execute(room, () -> bench.handle(room, sequence, lastTasks, isLast));
+            }
+            if(!lastTasks.await(60, TimeUnit.SECONDS)){
+                logger.error("failed: {} loops did not finish within 60 s", loops);
+                failures++;
+            }
+            long elapsed = System.nanoTime() - begin;
+            double rate = tasks / (elapsed / 1e9);
+            if(loops == 1) oneLoopRate = rate;
+            logger.info("{} loops: {} tasks/s, speedup {}, {} out of order or moved{}", loops, Math.round(rate),
+                    String.format("%.2f", rate / oneLoopRate), bench.violations.get(), group.getMetrics());
+            failures += bench.violations.get();
+            group.stop();
+        }
+        if(failures > 0) System.exit(1);
+    }
+}
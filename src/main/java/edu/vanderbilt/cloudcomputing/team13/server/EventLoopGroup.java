@@ -0,0 +1,188 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * N single-threaded event loops, normally one per core.
+ * Every room is hashed to exactly one loop, so all handlers of a room run one after another on the same thread
+ * and room state needs no locking. Each loop reports its utilisation and how long tasks waited in its queue.
+ */
+public class EventLoopGroup {
+    private static final Logger logger = LogManager.getLogger(EventLoopGroup.class.getName());
+
+    private final EventLoop[] loops;
+
+    public EventLoopGroup(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public EventLoopGroup(int loopNum){
+        if(loopNum < 1){
+            throw new IllegalArgumentException("invalid event loop number: " + loopNum);
+        }
+        loops = new EventLoop[loopNum];
+        for(int i = 0; i < loopNum; i++){
+            loops[i] = new EventLoop(i);
+        }
+    }
+
+    public void start(){
+        for(EventLoop loop : loops){
+            loop.start();
+        }
+        logger.info("started {} event loops", loops.length);
+    }
+
+    public void stop(){
+        for(EventLoop loop : loops){
+            loop.stop();
+        }
+    }
+
+    // run the task on the loop owning this room
+    public void execute(int roomId, Runnable task){
+        loopOf(roomId).execute(task);
+    }
+
+    public EventLoop loopOf(int roomId){
+        // spread consecutive room ids over all loops
+        int h = roomId * 0x9E3779B9;
+        h ^= h >>> 16;
+        return loops[(h & 0x7fffffff) % loops.length];
+    }
+
+    public int getLoopNum(){
+        return loops.length;
+    }
+
+    public EventLoop getLoop(int index){
+        return loops[index];
+    }
+
+    public String getMetrics(){
+        StringBuilder metrics = new StringBuilder();
+        for(EventLoop loop : loops){
+            metrics.append("\n").append(loop.getMetrics());
+        }
+        return metrics.toString();
+    }
+
+    public static class EventLoop{
+        private final int index;
+        private final ConcurrentLinkedQueue<Task> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queueDepth = new AtomicInteger(0);
+        private volatile boolean isParked = false;
+        private volatile boolean isLoopStop = false;
+        private Thread loopThread;
+
+        // metrics, written by the loop thread only
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong busyNanos = new AtomicLong(0);
+        private final AtomicLong taskCount = new AtomicLong(0);
+        private final AtomicLong totalQueueNanos = new AtomicLong(0);
+        private volatile long maxQueueNanos = 0;
+
+        EventLoop(int index){
+            this.index = index;
+        }
+
+        void start(){
+            loopThread = new Thread(this::loop, "event-loop-" + index);
+            loopThread.setDaemon(true);
+            loopThread.start();
+        }
+
+        void stop(){
+            isLoopStop = true;
+            LockSupport.unpark(loopThread);
+        }
+
+        public void execute(Runnable runnable){
+            queue.offer(new Task(runnable, System.nanoTime()));
+            queueDepth.incrementAndGet();
+            if(isParked){
+                LockSupport.unpark(loopThread);
+            }
+        }
+
+        public boolean inEventLoop(){
+            return Thread.currentThread() == loopThread;
+        }
+
+        private void loop(){
+            while(!isLoopStop){
+                Task task = queue.poll();
+                if(task == null){
+                    // announce the park before the last look, an execute after this point will unpark us
+                    isParked = true;
+                    if(queue.isEmpty() && !isLoopStop){
+                        LockSupport.park(this);
+                    }
+                    isParked = false;
+                    continue;
+                }
+                queueDepth.decrementAndGet();
+                long begin = System.nanoTime();
+                long waited = begin - task.enqueuedNanos;
+                try{
+                    task.runnable.run();
+                }catch (RuntimeException e){
+                    logger.error("task failed on event loop {}", index, e);
+                }
+                busyNanos.addAndGet(System.nanoTime() - begin);
+                taskCount.incrementAndGet();
+                totalQueueNanos.addAndGet(waited);
+                if(waited > maxQueueNanos) maxQueueNanos = waited;
+            }
+        }
+
+        /**
+         * metrics lookups
+         */
+
+        public int getQueueDepth(){
+            return queueDepth.get();
+        }
+
+        public long getTaskCount(){
+            return taskCount.get();
+        }
+
+        // busy time over wall time since the loop was created, 0..1
+        public double getUtilisation(){
+            long wall = System.nanoTime() - startNanos;
+            return wall == 0 ? 0 : (double) busyNanos.get() / wall;
+        }
+
+        public double getAverageQueueMicros(){
+            long tasks = taskCount.get();
+            return tasks == 0 ? 0 : totalQueueNanos.get() / 1000.0 / tasks;
+        }
+
+        public double getMaxQueueMicros(){
+            return maxQueueNanos / 1000.0;
+        }
+
+        public String getMetrics(){
+            return String.format("loop %d: tasks: %d, queue depth: %d, utilisation: %.1f%%, queue latency: avg %.1f us, max %.1f us",
+                    index, getTaskCount(), getQueueDepth(), getUtilisation() * 100,
+                    getAverageQueueMicros(), getMaxQueueMicros());
+        }
+    }
+
+    private static class Task{
+        final Runnable runnable;
+        final long enqueuedNanos;
+
+        Task(Runnable runnable, long enqueuedNanos){
+            this.runnable = runnable;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
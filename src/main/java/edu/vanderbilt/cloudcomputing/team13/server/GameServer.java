@@ -1,19 +1,24 @@
 package edu.vanderbilt.cloudcomputing.team13.server;
 
-import edu.vanderbilt.cloudcomputing.team13.client.GameState;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.zeromq.ZMQ;
-import edu.vanderbilt.cloudcomputing.team13.client.GameBoard;
 import edu.vanderbilt.cloudcomputing.team13.util.AbstractAction;
-import edu.vanderbilt.cloudcomputing.team13.util.Player;
-
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadLocalRandom;
+import edu.vanderbilt.cloudcomputing.team13.util.Dispatcher;
+import edu.vanderbilt.cloudcomputing.team13.util.Mailbox;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageReader;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageView;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -21,6 +26,11 @@ import java.util.concurrent.ThreadLocalRandom;
  */
 public class GameServer implements Runnable{
     private static final Logger logger = LogManager.getLogger(GameServer.class.getName());
+    private static final byte[] REPLY_OK = MessageCodec.encodeReply(MessageCodec.REPLY_OK);
+    private static final byte[] REPLY_ERROR = MessageCodec.encodeReply(MessageCodec.REPLY_ERROR);
+    private static final long CHECKPOINT_TIMEOUT_SECONDS = 5;
+    // requests kept for reuse beyond the ones in flight
+    private static final int MAX_POOLED_REQUESTS = 1024;
 
     // this context is shared among all zmq sockets in this app
     private ZMQ.Context context;
@@ -30,54 +40,80 @@ public class GameServer implements Runnable{
     private String responderPort;
     private String publisherPort;
 
-    // a publisher to every player
-    private ZMQ.Socket gamePub;
-    // a responder to every player
+    // a publisher to every player, the only thread writing the PUB socket
+    private Publisher gamePub;
+    // a router answering every player, only touched by the responder thread
     private ZMQ.Socket gameResponder;
-    // a list of players <id, player>
-    private GameState gameState = new GameState();
-
-    // thread pool
-    private ExecutorService threadPool;
-    // request handler map <request name, action>
-    private HashMap<String, AbstractAction> requestHandler;
+    // answered requests waiting for the responder thread to put their replies on the router socket
+    private Mailbox<Request> replyMailbox = new Mailbox<>();
+    // requests to reuse, only touched by the responder thread: it takes one per request and gets it back answered
+    private final ArrayDeque<Request> requestPool = new ArrayDeque<>();
+    // views of the journal records, replay runs on one thread
+    private final MessageView replayView = new MessageView();
+    // every game hosted by this server
+    private RoomRegistry rooms;
+
+    // accepted events, replayed on startup to rebuild the rooms
+    private Journal journal;
+
+    // one single-threaded event loop per core, every room is handled by exactly one of them
+    private EventLoopGroup eventLoops;
+    private Thread responderThread;
+    // request handler table <request opcode, action>, the actions are shared and see requests through a MessageView
+    private Dispatcher requestHandler;
 
     private boolean isSeverStop = false;
 
-
-    // game specs
-    private int MAX_PLAYER = 5;
-    private boolean isGameEnd = true;
-
     public GameServer(String ip){
+        this(ip, new File("journal"), new File("words.dict"));
+    }
+
+    public GameServer(String ip, File journalDirectory, File dictionaryFile){
         this.ip = ip;
+        rooms = new RoomRegistry(WordDictionary.openOrFallback(dictionaryFile));
         context = ZMQ.context(1);
-        gamePub = context.socket(ZMQ.PUB);
-        gameResponder = context.socket(ZMQ.REP);
+        gameResponder = context.socket(ZMQ.ROUTER);
 
         responderPort = "5555";
         publisherPort = "5556";
+        gamePub = new Publisher(context, "tcp://*:" + publisherPort);
 
-        threadPool = Executors.newFixedThreadPool(2 + MAX_PLAYER * 2);
+        eventLoops = new EventLoopGroup();
+        journal = new Journal(journalDirectory);
 
         initRequestHandler();
     }
 
     @Override
     public void run(){
+        // rebuild the rooms before anything can touch them
+        int replayed = recover();
+        journal.start();
         gameResponder.bind("tcp://*:" + responderPort);
-        gamePub.bind("tcp://*:" + publisherPort);
+        gamePub.start();
+        eventLoops.start();
+        // what was just replayed is needed no more once the rooms are checkpointed
+        if(replayed > 0) checkpoint();
         logger.info("*** Server is running.");
-        threadPool.submit(this::responder);
+        responderThread = new Thread(this::responder, "responder");
+        responderThread.setDaemon(true);
+        responderThread.start();
         while(!isSeverStop){
             try{
                 Thread.sleep(1000 * 10);
             }catch (InterruptedException e){
                 break;
             }
+            logger.debug("rooms: {}, publisher {}, journal {}, event loops: {}", rooms.getRoomCount(), gamePub.getMetrics(),
+                    journal.getMetrics(), eventLoops.getMetrics());
+            // a full segment since the last checkpoint, replace it by the state of the rooms
+            if(journal.getSegmentsSinceRoll() > 0) checkpoint();
         }
+        eventLoops.stop();
+        journal.stop();
         gameResponder.close();
-        gamePub.close();
+        gamePub.stop();
+        replyMailbox.close();
         context.term();
     }
 
@@ -86,173 +122,427 @@ public class GameServer implements Runnable{
     }
 
     private void responder(){
+        ZMQ.Poller poller = context.poller(2);
+        poller.register(gameResponder, ZMQ.Poller.POLLIN);
+        int replyIndex = poller.register(replyMailbox.channel(), ZMQ.Poller.POLLIN);
         while(!Thread.currentThread().isInterrupted()){
-            //  Wait for next request from client
-            String reqStr = gameResponder.recvStr();
-            if(reqStr == null){
-                logger.fatal("received null");
+            if(poller.poll() < 0) break;
+            if(poller.pollin(replyIndex)){
+                replyMailbox.clearSignal();
+                Request request;
+                while((request = replyMailbox.poll()) != null){
+                    reply(request.identity, request.correlationId, request.replyFrame);
+                    recycle(request);
+                }
+            }
+            // the socket signals new arrivals only, and sending the replies may have taken that signal:
+            // take every request that is waiting, not one per poll
+            byte[] identity;
+            while((identity = gameResponder.recv(ZMQ.DONTWAIT)) != null){
+                //  next request from client: [identity][correlation id][frame]
+                byte[] correlationId = gameResponder.recv();
+                byte[] frame = gameResponder.hasReceiveMore() ? gameResponder.recv() : null;
+                while(gameResponder.hasReceiveMore()){
+                    gameResponder.recv();
+                }
+                tryRespond(identity, correlationId, frame);
             }
-            logger.debug("request received: {}", reqStr);
-            tryRespond(reqStr);
         }
     }
 
-    private void tryRespond(String reqStr){
-        String[] splited = reqStr.split("@");
-        AbstractAction handler = requestHandler.get(splited[0]);
+    private void tryRespond(byte[] identity, byte[] correlationId, byte[] frame){
+        AbstractAction handler = requestHandler.actionOf(frame);
         if(handler == null){
             logger.warn("invalid request");
-            gameResponder.send("ERROR");
-            logger.debug("replied req: {}, ERROR", reqStr);
-        }else{
-            gameResponder.send("OK");
-            logger.debug("replied req: {}, OK", reqStr);
-            handler.setPara(splited[1]);
-            threadPool.submit(handler);
+            reply(identity, correlationId, REPLY_ERROR);
+            return;
         }
+        Request request = requestPool.poll();
+        if(request == null) request = new Request();
+        // ack only after the request has been processed, on the event loop owning the room
+        eventLoops.execute(MessageCodec.roomId(frame), request.set(identity, correlationId, frame, handler));
+    }
+
+    // responder thread only: [identity][correlation id][frame]
+    private void reply(byte[] identity, byte[] correlationId, byte[] frame){
+        gameResponder.sendMore(identity);
+        gameResponder.sendMore(correlationId);
+        gameResponder.send(frame);
+    }
+
+    // responder thread only, the request has been answered
+    private void recycle(Request request){
+        request.clear();
+        if(requestPool.size() < MAX_POOLED_REQUESTS) requestPool.push(request);
     }
 
     private void initRequestHandler(){
-        requestHandler = new HashMap<>();
-        requestHandler.put("CliNewPoint", new publishNewPoint());
-        requestHandler.put("CliNewWinner", new publishNewWinner());
-        requestHandler.put("CliNewPlayer", new setupNewPlayer());
-        requestHandler.put("CliPlayerReady", new setPlayerReady());
+        requestHandler = new Dispatcher()
+                .register(MessageCodec.CLI_NEW_POINT, new publishNewPoint())
+                .register(MessageCodec.CLI_NEW_POINTS, new publishNewPoints())
+                .register(MessageCodec.CLI_NEW_CURVES, new publishNewCurves())
+                .register(MessageCodec.CLI_GUESS, new checkGuess())
+                .register(MessageCodec.CLI_NEW_PLAYER, new setupNewPlayer())
+                .register(MessageCodec.CLI_PLAYER_READY, new setPlayerReady())
+                .register(MessageCodec.CLI_PLAYER_LEAVE, new removePlayer())
+                .register(MessageCodec.CLI_ROSTER, new sendRoster());
     }
 
-    private class publishNewPoint extends AbstractAction{
-        String para = null;
+    private int recover(){
+        long begin = System.nanoTime();
+        int replayed;
+        try{
+            replayed = journal.replay(this::replay);
+        }catch (IOException e){
+            throw new IllegalStateException("cannot read the journal", e);
+        }
+        logger.info("replayed {} journal records into {} rooms in {} ms", replayed, rooms.getRoomCount(),
+                (System.nanoTime() - begin) / 1000000);
+        return replayed;
+    }
 
-        @Override
-        public void setPara(String para) {
-            this.para = para;
+    /**
+     * journal the state of every room and drop the segments before it. The roll comes first, so every record
+     * written before it is covered by the checkpoints, which each room's event loop appends after the events it
+     * already handled; a record of a room between the roll and its checkpoint is replayed and then overwritten.
+     */
+    private void checkpoint(){
+        long begin = System.nanoTime();
+        journal.roll();
+        Collection<Room> all = new ArrayList<>(rooms.getRooms());
+        CountDownLatch done = new CountDownLatch(all.size());
+        AtomicInteger failed = new AtomicInteger(0);
+        for(Room room : all){
+            eventLoops.execute(room.getRoomId(), () -> {
+                try{
+                    // removed since, replaying its records leaves nothing either
+                    if(room.getCurPlayerNum() > 0) journal.append(room.checkpoint());
+                }catch (RuntimeException e){
+                    failed.incrementAndGet();
+                    logger.warn("cannot checkpoint room {}", room.getRoomId(), e);
+                }finally{
+                    done.countDown();
+                }
+            });
+        }
+        try{
+            if(!done.await(CHECKPOINT_TIMEOUT_SECONDS, TimeUnit.SECONDS)){
+                logger.warn("checkpoint of {} rooms not done within {} s, journal kept", all.size(), CHECKPOINT_TIMEOUT_SECONDS);
+                return;
+            }
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            return;
+        }
+        // a room without a checkpoint still needs its records
+        if(failed.get() > 0) return;
+        journal.retire();
+        logger.info("checkpointed {} rooms in {} ms", all.size(), (System.nanoTime() - begin) / 1000000);
+    }
+
+    // apply one journaled event, runs before the event loops start
+    private void replay(byte[] frame){
+        if(!MessageCodec.isValid(frame)){
+            logger.warn("invalid journal record");
+            return;
+        }
+        try{
+            Room room = rooms.getOrCreate(MessageCodec.roomId(frame));
+            MessageReader reader = new MessageReader(frame);
+            MessageView view = replayView.wrap(frame);
+            // requests are journaled as they were published, older journals hold the requests themselves
+            switch (MessageCodec.opcode(frame)){
+                case MessageCodec.CLI_NEW_PLAYER:
+                    room.addPlayer(reader.readString(), reader.readString(), reader.readString());
+                    break;
+                case MessageCodec.CLI_PLAYER_READY:
+                case MessageCodec.SERVER_PLAYER_READY:
+                    room.setPlayerReady(reader.readString(), reader.readBoolean());
+                    break;
+                case MessageCodec.CLI_PLAYER_LEAVE:
+                    room.removePlayer(reader.readString());
+                    if(room.getCurPlayerNum() == 0) rooms.remove(room);
+                    break;
+                case MessageCodec.SERVER_NEW_GAME:
+                    String drawerId = reader.readString();
+                    String word = reader.readString();
+                    List<String> synonyms = new ArrayList<>();
+                    int count = reader.remaining() > 0 ? reader.readShort() : 0;
+                    for(int i = 0; i < count; i++){
+                        synonyms.add(reader.readString());
+                    }
+                    room.startGame(drawerId, word, synonyms);
+                    break;
+                case MessageCodec.CLI_NEW_POINT:
+                case MessageCodec.SERVER_NEW_POINT:
+                    room.getStrokeLog().appendPoint(view);
+                    room.nextInkSequence();
+                    break;
+                case MessageCodec.CLI_NEW_POINTS:
+                case MessageCodec.SERVER_NEW_POINTS:
+                    room.getStrokeLog().appendPoints(view);
+                    room.nextInkSequence();
+                    break;
+                case MessageCodec.CLI_NEW_CURVES:
+                case MessageCodec.SERVER_NEW_CURVES:
+                    room.getStrokeLog().appendCurves(view);
+                    room.nextInkSequence();
+                    break;
+                case MessageCodec.CLI_NEW_WINNER:
+                    // the winner of a correct guess, see checkGuess
+                    room.declareWinner(reader.readString());
+                    break;
+                case MessageCodec.JOURNAL_CHECKPOINT:
+                    room.restore(frame);
+                    break;
+                default:
+                    logger.warn("unexpected journal record: {}", MessageCodec.opcodeName(MessageCodec.opcode(frame)));
+            }
+        }catch (RuntimeException e){
+            logger.warn("skipped bad journal record", e);
+        }
+    }
+
+    // journal an accepted request that is not published as it is, the view is reused once the action returned
+    private void record(MessageView para){
+        journal.append(para.toByteArray());
+    }
+
+    // publish a frame of this room, numbered by the room per opcode
+    private void publish(Room room, byte[] frame){
+        gamePub.publish(frame, room.nextSequence(MessageCodec.opcode(frame)));
+    }
+
+    // journal and publish the same frame, neither changes it
+    private void recordAndPublish(Room room, byte[] frame){
+        journal.append(frame);
+        publish(room, frame);
+    }
+
+    // the same for an ink frame, numbered by its room
+    private void recordAndPublish(byte[] frame, int inkSequence){
+        journal.append(frame);
+        gamePub.publish(frame, inkSequence);
+    }
+
+    /**
+     * one routed request on its way through an event loop, answered once its action has run. The same object
+     * carries the reply back to the responder thread, which reuses it for a later request
+     */
+    private class Request implements Runnable{
+        byte[] identity;
+        byte[] correlationId;
+        AbstractAction handler;
+        // what the action sees of the frame
+        final MessageView message = new MessageView();
+        byte[] replyFrame;
+
+        Request set(byte[] identity, byte[] correlationId, byte[] frame, AbstractAction handler){
+            this.identity = identity;
+            this.correlationId = correlationId;
+            this.handler = handler;
+            message.wrap(frame);
+            return this;
+        }
+
+        void clear(){
+            identity = null;
+            correlationId = null;
+            handler = null;
+            message.wrap(null);
+            replyFrame = null;
         }
 
         @Override
         public void run(){
-            if(para == null){
-                logger.warn("invalid parameter for publishNewPoint.");
-            }else{
-                logger.debug("publishing new point: {}", para);
-                gamePub.sendMore("ServerNewPoint");
-                gamePub.send(para);
+            replyFrame = REPLY_OK;
+            try{
+                byte[] reply = handler.call(message);
+                if(reply != null) replyFrame = reply;
+            }catch (RuntimeException e){
+                logger.warn("failed to process {}", MessageCodec.opcodeName(message.opcode()), e);
+                replyFrame = REPLY_ERROR;
+            }
+            if(logger.isDebugEnabled()){
+                logger.debug("replied req: {}, {}", MessageCodec.opcodeName(message.opcode()),
+                        MessageCodec.opcodeName(MessageCodec.opcode(replyFrame)));
             }
+            replyMailbox.offer(this);
         }
     }
 
-    private class publishNewWinner extends AbstractAction{
-        String para = null;
+    // the room a request belongs to, players have to join a room before anything else
+    private Room roomOf(MessageView para){
+        Room room = rooms.get(para.roomId());
+        if(room == null){
+            throw new IllegalStateException("unknown room: " + para.roomId());
+        }
+        return room;
+    }
 
+    private class publishNewPoint extends AbstractAction{
         @Override
-        public void setPara(String para) {
-            this.para = para;
+        public void run(MessageView para){
+            if(!para.isPointFrame()){
+                logger.warn("invalid parameter for publishNewPoint.");
+            }else{
+                Room room = roomOf(para);
+                room.getStrokeLog().appendPoint(para);
+                logger.debug("publishing new point: {}, {}", para.pointX(), para.pointY());
+                recordAndPublish(para.copyAs(MessageCodec.SERVER_NEW_POINT), room.nextInkSequence());
+            }
         }
+    }
 
+    private class publishNewPoints extends AbstractAction{
         @Override
-        public void run(){
-            if(para == null){
-                logger.warn("invalid parameter for publishNewWinner.");
+        public void run(MessageView para){
+            if(!para.isPointsFrame()){
+                logger.warn("invalid parameter for publishNewPoints.");
             }else{
-                // double check if this game is still no winner
-                if(!isGameEnd){
-                    gamePub.sendMore("ServerNewWinner");
-                    gamePub.send(para);
-                }
+                Room room = roomOf(para);
+                room.getStrokeLog().appendPoints(para);
+                logger.debug("publishing {} new points", para.pointCount());
+                recordAndPublish(para.copyAs(MessageCodec.SERVER_NEW_POINTS), room.nextInkSequence());
             }
         }
     }
 
-    private class setupNewPlayer extends AbstractAction {
-        String para = null;
+    private class publishNewCurves extends AbstractAction{
+        @Override
+        public void run(MessageView para){
+            if(!para.isPointsFrame()){
+                logger.warn("invalid parameter for publishNewCurves.");
+            }else{
+                Room room = roomOf(para);
+                room.getStrokeLog().appendCurves(para);
+                logger.debug("publishing {} new control points", para.pointCount());
+                recordAndPublish(para.copyAs(MessageCodec.SERVER_NEW_CURVES), room.nextInkSequence());
+            }
+        }
+    }
 
+    private class checkGuess extends AbstractAction {
         @Override
-        public void setPara(String para) {
-            this.para = para;
+        public byte[] call(MessageView para){
+            if(para == null){
+                logger.warn("invalid parameter for checkGuess.");
+                return null;
+            }
+            Room room = roomOf(para);
+            MessageReader reader = para.reader();
+            String playerId = reader.readString();
+            String text = reader.readString();
+            int result = room.checkGuess(playerId, text);
+            // the first correct guess wins, later ones find the round over and are wrong
+            if(result == MessageCodec.GUESS_CORRECT && room.declareWinner(playerId)){
+                logger.debug("{} guessed the word in room {}", playerId, room.getRoomId());
+                // journaled as the winner it declares, guesses themselves are not replayed
+                journal.append(MessageCodec.encodeWinner(MessageCodec.CLI_NEW_WINNER, room.getRoomId(), playerId));
+                publish(room, MessageCodec.encodeWinner(MessageCodec.SERVER_NEW_WINNER, room.getRoomId(), playerId));
+            }
+            return MessageCodec.encodeGuessResult(room.getRoomId(), result);
         }
+    }
 
+    private class setupNewPlayer extends AbstractAction {
         @Override
-        public void run() {
+        public byte[] call(MessageView para){
             if (para == null) {
                 logger.warn("invalid parameter for setupNewPlayer.");
+                return null;
             } else {
-                // check if there is enough space
-                if (gameState.getCurPlayerNum() <= MAX_PLAYER) {
-                    // add new player to list
-                    String[] splited = para.split("%");
-                    String playerId = splited[0];
-                    String playerIp = splited[1];
-                    String playerName = splited[2];
-                    String position = Integer.toString(gameState.getCurPlayerNum());
-                    gameState.addPlayer(playerIp, playerName, playerId, position);
-
-                    // sent list to all players
-                    StringBuilder para = new StringBuilder();
-                    // compile the new para string
-                    for(Map.Entry<String, Player> entry : gameState.getPlayersMap().entrySet()){
-                        Player player = entry.getValue();
-                        String curInfo = player.getId() + "%" + player.getIp() + "%" + player.getName() + "%" + player.getPosition();
-                        para.append("|");
-                        para.append(curInfo);
-                    }
-                    para.deleteCharAt(0);
-
-                    gamePub.sendMore("ServerNewPlayerList");
-                    gamePub.send(para.toString());
+                MessageReader reader = para.reader();
+                String playerId = reader.readString();
+                String playerIp = reader.readString();
+                String playerName = reader.readString();
+                // add new player to list, if there is enough space
+                Room room = rooms.getOrCreate(reader.roomId());
+                byte[] delta = room.addPlayer(playerId, playerIp, playerName);
+                if (delta != null) {
+                    record(para);
+                    // tell all players of the room who joined, the new one asks for the whole list
+                    publish(room, delta);
                 }
+                // and the drawing so far to the new one
+                return room.snapshot();
             }
         }
     }
 
     private class setPlayerReady extends AbstractAction {
-        String para = null;
-
         @Override
-        public void setPara(String para) {
-            this.para = para;
+        public void run(MessageView para){
+            if (para == null) {
+                logger.warn("invalid parameter for setPlayerReady.");
+            } else {
+                Room room = roomOf(para);
+                MessageReader reader = para.reader();
+                String playerId = reader.readString();
+                boolean readyState = reader.readBoolean();
+                // if the game is on-going, omit this one.
+                if(!room.setPlayerReady(playerId, readyState)) return;
+                recordAndPublish(room, para.copyAs(MessageCodec.SERVER_PLAYER_READY));
+                tryStartGame(room);
+            }
         }
+    }
 
+    private class removePlayer extends AbstractAction {
         @Override
-        public void run() {
+        public void run(MessageView para){
             if (para == null) {
-                logger.warn("invalid parameter for setPlayerReady.");
+                logger.warn("invalid parameter for removePlayer.");
             } else {
-                // if the game is on-going, omit this one.
-                if(!isGameEnd) return;
-
-                String[] splited = para.split("%");
-                int readyState = Integer.parseInt(splited[1]);
-                gameState.setPlayerReady(splited[0], readyState != 0);
-                gamePub.sendMore("ServerPlayerReady");
-                gamePub.send(para);
-                // if all players are ready, start the game
-                for(Map.Entry<String, Player> entry : gameState.getPlayersMap().entrySet()){
-                    if(!entry.getValue().isReady()){
-                        return;
-                    }
+                Room room = roomOf(para);
+                boolean wasGameOn = !room.isGameEnd();
+                byte[] delta = room.removePlayer(para.reader().readString());
+                if(delta == null) return;
+                // replaying the leave ends the round the same way, nothing else to journal
+                record(para);
+                publish(room, delta);
+                if(wasGameOn && room.isGameEnd()){
+                    // the drawer or the last guesser left, reset everybody without a winner
+                    publish(room, MessageCodec.encodeWinner(MessageCodec.SERVER_NEW_WINNER, room.getRoomId(), Room.NO_WINNER));
                 }
-
-                // start the game
-                isGameEnd = false;
-                // randomly pick a drawer and a word
-                int playerNum = gameState.getCurPlayerNum();
-                int randomNum = ThreadLocalRandom.current().nextInt(0, playerNum);
-                String pickedPlayerID = null;
-                for(Map.Entry<String, Player> entry : gameState.getPlayersMap().entrySet()) {
-                    randomNum--;
-                    if(randomNum < 0){
-                        pickedPlayerID = entry.getKey();
-                    }
+                if(room.getCurPlayerNum() == 0){
+                    // requests still queued for the room find no room, the next join creates a new one
+                    rooms.remove(room);
+                    return;
                 }
-                String pickedWord = "FindMeUnays";
+                // the players left may all be ready
+                tryStartGame(room);
+            }
+        }
+    }
 
-                gamePub.sendMore("ServerNewGame");
-                gamePub.send(pickedPlayerID + "%"+ pickedWord);
+    private class sendRoster extends AbstractAction {
+        @Override
+        public byte[] call(MessageView para){
+            if (para == null) {
+                logger.warn("invalid parameter for sendRoster.");
+                return null;
             }
+            return roomOf(para).getRoster();
+        }
+    }
+
+    // if all players are ready, start the game with a random drawer and the room's next word
+    private void tryStartGame(Room room){
+        String pickedPlayerID = room.tryStartGame();
+        if(pickedPlayerID != null){
+            // drawer and word are random picks, journal the outcome rather than replaying the pick
+            byte[] newGame = MessageCodec.encodeNewGame(room.getRoomId(), pickedPlayerID, room.getWord(),
+                    room.getSynonyms());
+            journal.append(newGame);
+            publish(room, newGame);
         }
     }
 
     public static void main(String[] args) {
-        new GameServer(args[0]).run();
+        File journalDirectory = new File(args.length > 1 ? args[1] : "journal");
+        File dictionaryFile = new File(args.length > 2 ? args[2] : "words.dict");
+        new GameServer(args[0], journalDirectory, dictionaryFile).run();
     }
 
 }
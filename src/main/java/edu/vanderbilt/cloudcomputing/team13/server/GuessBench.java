@@ -0,0 +1,91 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Guess matching throughput on one core, runnable without a benchmark harness. The answers come from a compiled
+ * dictionary, word and synonyms, the way a room starts its round. A few guesses are checked first, a wrong result
+ * exits with status 1; then a mix of correct, close, wrong and sentence-long guesses is matched for a second per run.
+ *
+ *   GuessBench [runs]
+ */
+public class GuessBench {
+    private static final Logger logger = LogManager.getLogger(GuessBench.class.getName());
+
+    private static final String WORDS = "FindMeUnays\tgeneral\t1\tFind me Unays, Unays\n"
+            + "helicopter\tthings\t2\tchopper\n";
+
+    public static void main(String[] args) throws IOException{
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        WordDictionary dictionary = new WordDictionary(ByteBuffer.wrap(WordDictionary.compile(
+                new BufferedReader(new StringReader(WORDS)))));
+        GuessMatcher matcher = new GuessMatcher(dictionary.word(1), dictionary.synonyms(1));
+
+        String[][] expected = {
+                {"Helicopter!", "correct"}, {"CHOPPER", "correct"}, {"choper", "close"}, {"helikopter", "close"},
+                {"helicoptre", "close"}, {"heli", "wrong"}, {"banana", "wrong"}
+        };
+        int failures = 0;
+        for(String[] guess : expected){
+            String result = resultName(matcher.match(guess[0]));
+            if(!result.equals(guess[1])){
+                failures++;
+                logger.error("failed: {} is {}, expected {}", guess[0], result, guess[1]);
+            }
+        }
+        if(failures > 0) System.exit(1);
+
+        matcher = new GuessMatcher(dictionary.word(0), dictionary.synonyms(0));
+        String[] guesses = guesses(new Random(1), 4096);
+        long sink = 0;
+        for(int run = 0; run < runs; run++){
+            long begin = System.nanoTime();
+            long count = 0;
+            while(System.nanoTime() - begin < 1000000000L){
+                for(String guess : guesses){
+                    sink += matcher.match(guess);
+                }
+                count += guesses.length;
+            }
+            logger.info("run {}: {} guesses/s", run, Math.round(count / ((System.nanoTime() - begin) / 1e9)));
+        }
+        // keeps the matches from being optimised away
+        logger.debug("checksum {}", sink);
+    }
+
+    // a quarter each: near misses, random letters, correct in another spelling, long sentences
+    private static String[] guesses(Random random, int count){
+        String[] guesses = new String[count];
+        for(int i = 0; i < count; i++){
+            switch (random.nextInt(4)){
+                case 0:
+                    guesses[i] = "findmeunays".substring(0, 6 + random.nextInt(5)) + "x";
+                    break;
+                case 1:
+                    char[] letters = new char[3 + random.nextInt(12)];
+                    for(int j = 0; j < letters.length; j++) letters[j] = (char) ('a' + random.nextInt(26));
+                    guesses[i] = new String(letters);
+                    break;
+                case 2:
+                    guesses[i] = "Find Me " + (char) ('a' + random.nextInt(26)) + "nays";
+                    break;
+                default:
+                    guesses[i] = "some longer sentence guess " + i;
+            }
+        }
+        return guesses;
+    }
+
+    private static String resultName(int result){
+        if(result == MessageCodec.GUESS_CORRECT) return "correct";
+        return result == MessageCodec.GUESS_CLOSE ? "close" : "wrong";
+    }
+}
@@ -0,0 +1,123 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+
+/**
+ * Checks guesses against the word of one round and its accepted synonyms.
+ *
+ * Answers are normalised once when the round starts, every guess goes through the same normalisation:
+ * lower case, accents stripped, anything but letters and digits dropped, so "Find me, Unays!" matches
+ * "findmeunays". A guess that is not an answer but within a small edit distance of one is close; the distance
+ * is computed in a band of that width only and gives up as soon as the band exceeds it.
+ *
+ * Confined to the event loop of its room like the room itself, the work arrays are reused.
+ */
+public class GuessMatcher {
+    // longest guess looked at, in normalised characters
+    public static final int MAX_GUESS_LENGTH = 64;
+
+    private final HashSet<String> answers = new HashSet<>();
+    private final char[][] answerChars;
+    // edit distance still counted as close, per answer
+    private final int[] closeDistances;
+
+    private final StringBuilder normalised = new StringBuilder(MAX_GUESS_LENGTH);
+    private char[] guessChars = new char[MAX_GUESS_LENGTH];
+    private int[] previousRow = new int[MAX_GUESS_LENGTH + 1];
+    private int[] currentRow = new int[MAX_GUESS_LENGTH + 1];
+
+    public GuessMatcher(String word, Collection<String> synonyms){
+        addAnswer(word);
+        if(synonyms != null){
+            for(String synonym : synonyms){
+                addAnswer(synonym);
+            }
+        }
+        answerChars = new char[answers.size()][];
+        closeDistances = new int[answers.size()];
+        int i = 0;
+        for(String answer : answers){
+            answerChars[i] = answer.toCharArray();
+            closeDistances[i] = closeDistance(answer.length());
+            i++;
+        }
+    }
+
+    // MessageCodec.GUESS_CORRECT, GUESS_CLOSE or GUESS_WRONG
+    public int match(String guess){
+        String key = normalise(guess, normalised);
+        if(key.isEmpty()) return MessageCodec.GUESS_WRONG;
+        if(answers.contains(key)) return MessageCodec.GUESS_CORRECT;
+        int length = key.length();
+        key.getChars(0, length, guessChars, 0);
+        for(int i = 0; i < answerChars.length; i++){
+            if(closeDistances[i] > 0 && isWithin(answerChars[i], length, closeDistances[i])){
+                return MessageCodec.GUESS_CLOSE;
+            }
+        }
+        return MessageCodec.GUESS_WRONG;
+    }
+
+    public int getAnswerCount(){
+        return answers.size();
+    }
+
+    private void addAnswer(String answer){
+        String key = normalise(answer, new StringBuilder());
+        if(!key.isEmpty()) answers.add(key);
+    }
+
+    // one typo in a short word, two in a longer one, none in a word short enough to guess by chance
+    static int closeDistance(int length){
+        if(length <= 3) return 0;
+        return length <= 7 ? 1 : 2;
+    }
+
+    static String normalise(String text, StringBuilder out){
+        out.setLength(0);
+        // decompose accented letters, the accents are dropped below
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD).toLowerCase(Locale.ROOT);
+        for(int i = 0; i < decomposed.length() && out.length() < MAX_GUESS_LENGTH; i++){
+            char c = decomposed.charAt(i);
+            if(Character.isLetterOrDigit(c)) out.append(c);
+        }
+        return out.toString();
+    }
+
+    // Levenshtein distance of guessChars[0, length) and answer is at most max, only cells within max of the diagonal
+    private boolean isWithin(char[] answer, int length, int max){
+        int n = answer.length;
+        if(Math.abs(n - length) > max) return false;
+        int[] previous = previousRow;
+        int[] current = currentRow;
+        int outside = max + 1;
+        for(int j = 0; j <= n; j++){
+            previous[j] = j <= max ? j : outside;
+        }
+        for(int i = 1; i <= length; i++){
+            int from = Math.max(1, i - max);
+            int to = Math.min(n, i + max);
+            current[0] = i <= max ? i : outside;
+            if(from > 1) current[from - 1] = outside;
+            int rowMin = current[0];
+            char c = guessChars[i - 1];
+            for(int j = from; j <= to; j++){
+                int cost = answer[j - 1] == c ? 0 : 1;
+                int d = Math.min(previous[j - 1] + cost, Math.min(previous[j] + 1, current[j - 1] + 1));
+                current[j] = Math.min(d, outside);
+                if(current[j] < rowMin) rowMin = current[j];
+            }
+            if(to < n) current[to + 1] = outside;
+            if(rowMin > max) return false;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[n] <= max;
+    }
+}
@@ -0,0 +1,321 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the events the server accepted, so that a restarted server can rebuild its rooms.
+ *
+ * Records live in memory-mapped segment files (journal-00000000.seg, ...) of a fixed size, each record is
+ * [length:int][crc32:int][frame]; a zero length marks the end of a segment. Handlers on any thread call
+ * {@link #append(byte[])}, which only puts the frame on a lock-free queue. The journal thread drains the queue,
+ * copies a batch of records into the mapped segment and forces it to disk once per batch (group commit),
+ * so journal writes never sit on the path of a publish. A segment that cannot take the next record is closed
+ * and the next one is created.
+ *
+ * On startup {@link #replay(Consumer)} hands every intact record to the server in order. A record with a bad length
+ * or checksum ends its segment, it is what a crash in the middle of a write leaves behind.
+ *
+ * The journal is kept short by checkpoints: the server calls {@link #roll()} to start a new segment, appends one
+ * record with the whole state of every room, then calls {@link #retire()}, which deletes the segments before the
+ * roll. Replay then starts from the last checkpoint, so its length depends on the rooms and on what happened since,
+ * not on how long the server has been running. Both are queued like records and take effect in order with them.
+ */
+public class Journal {
+    private static final Logger logger = LogManager.getLogger(Journal.class.getName());
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+    private static final int RECORD_HEADER_SIZE = 8;
+    // upper bound of records written before the segment is forced
+    private static final int MAX_COMMIT_BATCH = 4096;
+    // queued by roll() and retire(), compared by identity
+    private static final byte[] ROLL = new byte[0];
+    private static final byte[] RETIRE = new byte[0];
+
+    private final File directory;
+    private final int segmentSize;
+
+    private final ConcurrentLinkedQueue<byte[]> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger(0);
+    private volatile boolean isParked = false;
+    private volatile boolean isJournalStop = false;
+    private Thread journalThread;
+
+    // the segment being appended to, owned by the journal thread once started
+    private volatile int segmentIndex = -1;
+    // the first segment written since the last roll, retire() deletes the ones before it
+    private volatile int rollSegment = 0;
+    private RandomAccessFile segmentFile;
+    private MappedByteBuffer segment;
+    private final CRC32 crc = new CRC32();
+
+    // metrics
+    private final AtomicLong recordCount = new AtomicLong(0);
+    private final AtomicLong commitCount = new AtomicLong(0);
+    private final AtomicLong retiredCount = new AtomicLong(0);
+    private volatile int maxCommitBatch = 0;
+    private volatile long maxCommitMicros = 0;
+
+    public Journal(File directory){
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public Journal(File directory, int segmentSize){
+        if(segmentSize <= RECORD_HEADER_SIZE){
+            throw new IllegalArgumentException("invalid segment size: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * hand every intact record to the consumer in the order it was written, returns the number of records.
+     * Must be called before {@link #start()}, appending continues right after the last intact record.
+     */
+    public int replay(Consumer<byte[]> consumer) throws IOException{
+        if(!directory.isDirectory() && !directory.mkdirs()){
+            throw new IOException("cannot create journal directory " + directory);
+        }
+        int[] indexes = listSegments();
+        if(indexes.length > 0) rollSegment = indexes[0];
+        long before = recordCount.get();
+        for(int i = 0; i < indexes.length; i++){
+            boolean isLast = i == indexes.length - 1;
+            openSegment(indexes[i]);
+            int end = replaySegment(consumer);
+            if(isLast){
+                // wipe whatever a torn write left behind, new records go right after the last intact one
+                for(int pos = end; pos < segmentSize; pos++){
+                    segment.put(pos, (byte) 0);
+                }
+                segment.position(end);
+            }else{
+                closeSegment();
+            }
+        }
+        return (int) (recordCount.get() - before);
+    }
+
+    public void start(){
+        journalThread = new Thread(this::loop, "journal");
+        journalThread.setDaemon(true);
+        journalThread.start();
+    }
+
+    // writes what is still queued before returning
+    public void stop(){
+        isJournalStop = true;
+        LockSupport.unpark(journalThread);
+        try{
+            journalThread.join(5000);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // records appended from now on go to a new segment
+    public void roll(){
+        append(ROLL);
+    }
+
+    // deletes the segments written before the last roll, the records after it must make up for them
+    public void retire(){
+        append(RETIRE);
+    }
+
+    // the frame must not be modified afterwards, it is written by the journal thread
+    public void append(byte[] frame){
+        queue.offer(frame);
+        queueDepth.incrementAndGet();
+        if(isParked){
+            LockSupport.unpark(journalThread);
+        }
+    }
+
+    private void loop(){
+        try{
+            if(segment == null){
+                if(!directory.isDirectory() && !directory.mkdirs()){
+                    throw new IOException("cannot create journal directory " + directory);
+                }
+                openSegment(segmentIndex + 1);
+            }
+            while(true){
+                int batch = 0;
+                long begin = System.nanoTime();
+                byte[] frame;
+                while(batch < MAX_COMMIT_BATCH && (frame = queue.poll()) != null){
+                    if(frame == ROLL){
+                        rollSegment();
+                    }else if(frame == RETIRE){
+                        retireSegments();
+                    }else{
+                        write(frame);
+                    }
+                    batch++;
+                }
+                if(batch > 0){
+                    // one flush for the whole batch
+                    segment.force();
+                    queueDepth.addAndGet(-batch);
+                    recordCommit(batch, System.nanoTime() - begin);
+                    continue;
+                }
+                if(isJournalStop) break;
+                // announce the park before the last look, an append after this point will unpark us
+                isParked = true;
+                if(queue.isEmpty() && !isJournalStop){
+                    LockSupport.park(this);
+                }
+                isParked = false;
+            }
+            closeSegment();
+        }catch (IOException e){
+            logger.error("journal stopped, events are no longer recorded", e);
+        }
+    }
+
+    private void write(byte[] frame) throws IOException{
+        int size = RECORD_HEADER_SIZE + frame.length;
+        if(size > segmentSize){
+            logger.warn("record of {} bytes does not fit in a segment, dropped", frame.length);
+            return;
+        }
+        // leave a zero length behind as the end marker of a full segment
+        if(segment.position() + size > segmentSize){
+            segment.force();
+            closeSegment();
+            openSegment(segmentIndex + 1);
+        }
+        crc.reset();
+        crc.update(frame, 0, frame.length);
+        segment.putInt(frame.length);
+        segment.putInt((int) crc.getValue());
+        segment.put(frame);
+        recordCount.incrementAndGet();
+    }
+
+    private void rollSegment() throws IOException{
+        // an empty segment starts after the roll already
+        if(segment.position() > 0){
+            segment.force();
+            closeSegment();
+            openSegment(segmentIndex + 1);
+        }
+        rollSegment = segmentIndex;
+    }
+
+    private void retireSegments(){
+        int deleted = 0;
+        for(int index : listSegments()){
+            if(index >= rollSegment) break;
+            File file = new File(directory, String.format("journal-%08d.seg", index));
+            if(file.delete()){
+                deleted++;
+            }else{
+                logger.warn("cannot delete retired journal segment {}", file);
+            }
+        }
+        retiredCount.addAndGet(deleted);
+        logger.info("retired {} journal segments before segment {}", deleted, rollSegment);
+    }
+
+    // returns the position after the last intact record of the open segment
+    private int replaySegment(Consumer<byte[]> consumer){
+        int pos = 0;
+        while(pos + RECORD_HEADER_SIZE <= segmentSize){
+            int length = segment.getInt(pos);
+            if(length == 0) break;
+            if(length < 0 || pos + RECORD_HEADER_SIZE + length > segmentSize){
+                logger.warn("bad record length {} at {} in segment {}, rest of the segment skipped", length, pos, segmentIndex);
+                break;
+            }
+            byte[] frame = new byte[length];
+            segment.position(pos + RECORD_HEADER_SIZE);
+            segment.get(frame);
+            crc.reset();
+            crc.update(frame, 0, length);
+            if((int) crc.getValue() != segment.getInt(pos + 4)){
+                logger.warn("bad checksum at {} in segment {}, rest of the segment skipped", pos, segmentIndex);
+                break;
+            }
+            consumer.accept(frame);
+            recordCount.incrementAndGet();
+            pos += RECORD_HEADER_SIZE + length;
+        }
+        return pos;
+    }
+
+    private int[] listSegments(){
+        String[] names = directory.list((dir, name) -> name.matches("journal-\\d{8}\\.seg"));
+        if(names == null) return new int[0];
+        int[] indexes = new int[names.length];
+        for(int i = 0; i < names.length; i++){
+            indexes[i] = Integer.parseInt(names[i].substring(8, 16));
+        }
+        Arrays.sort(indexes);
+        return indexes;
+    }
+
+    private void openSegment(int index) throws IOException{
+        File file = new File(directory, String.format("journal-%08d.seg", index));
+        segmentFile = new RandomAccessFile(file, "rw");
+        if(segmentFile.length() != segmentSize){
+            segmentFile.setLength(segmentSize);
+        }
+        segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segmentIndex = index;
+    }
+
+    // the mapping itself goes away with the buffer, java 8 has no way to unmap it earlier
+    private void closeSegment() throws IOException{
+        if(segmentFile != null){
+            segmentFile.close();
+        }
+        segmentFile = null;
+        segment = null;
+    }
+
+    private void recordCommit(int batch, long nanos){
+        commitCount.incrementAndGet();
+        if(batch > maxCommitBatch) maxCommitBatch = batch;
+        long micros = nanos / 1000;
+        if(micros > maxCommitMicros) maxCommitMicros = micros;
+    }
+
+    /**
+     * metrics lookups
+     */
+
+    public long getRecordCount(){
+        return recordCount.get();
+    }
+
+    public int getQueueDepth(){
+        return queueDepth.get();
+    }
+
+    // segments written since the last roll, 0 right after a roll
+    public int getSegmentsSinceRoll(){
+        return Math.max(0, segmentIndex - rollSegment);
+    }
+
+    public String getMetrics(){
+        long commits = commitCount.get();
+        return String.format("records: %d, segment: %d, retired: %d, queue depth: %d, commits: %d, commit batch: max %d, commit time: max %d us",
+                getRecordCount(), segmentIndex, retiredCount.get(), getQueueDepth(), commits, maxCommitBatch, maxCommitMicros);
+    }
+}
@@ -0,0 +1,231 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.zeromq.ZMQ;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The only writer of the server's PUB socket.
+ * Handlers on any thread call {@link #publish(byte[], int)}, which appends to a lock-free queue.
+ * The publisher thread drains the queue in batches and parks when it is empty,
+ * so frames from different handlers can never interleave on the socket.
+ * Every frame goes out as [frame][sequence:int], numbered by its room per opcode in publish order, so subscribers
+ * can tell when messages were dropped; ink frames share one count over points, point runs and curves (see Room).
+ *
+ * The socket is an XPUB, the publisher thread reads the subscriptions of all subscribers before each batch and
+ * does not send frames nobody subscribed to. Topics are header prefixes: all rooms, one room, or one kind of message
+ * of a room (see MessageCodec.topic).
+ */
+public class Publisher {
+    private static final Logger logger = LogManager.getLogger(Publisher.class.getName());
+
+    // upper bound of frames sent before the queue is checked for shutdown again
+    private static final int MAX_DRAIN_BATCH = 1024;
+
+    private final ZMQ.Context context;
+    private final String endpoint;
+
+    private final ConcurrentLinkedQueue<Outgoing> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the queue, keep our own count
+    private final AtomicInteger queueDepth = new AtomicInteger(0);
+    private volatile boolean isParked = false;
+    private volatile boolean isPublisherStop = false;
+    private Thread publisherThread;
+    // owned by the publisher thread: subscribed header prefixes as topic keys, sorted, so a frame is looked up
+    // without boxing
+    private long[] subscriptions = new long[16];
+    private int subscriptionCount = 0;
+    // subscribed prefixes longer than a header, frames are always sent while there are any
+    private int longSubscriptions = 0;
+
+    // metrics
+    private final AtomicInteger maxQueueDepth = new AtomicInteger(0);
+    private volatile int lastDrainBatchSize = 0;
+    private volatile int maxDrainBatchSize = 0;
+    private final AtomicLong publishedCount = new AtomicLong(0);
+    private final AtomicLong drainCount = new AtomicLong(0);
+    private final AtomicLong unsubscribedCount = new AtomicLong(0);
+
+    public Publisher(ZMQ.Context context, String endpoint){
+        this.context = context;
+        this.endpoint = endpoint;
+    }
+
+    public void start(){
+        publisherThread = new Thread(this::loop, "publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    public void stop(){
+        isPublisherStop = true;
+        LockSupport.unpark(publisherThread);
+        try{
+            publisherThread.join(1000);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // a frame its room has numbered, sequences start at 1
+    public void publish(byte[] frame, int sequence){
+        queue.offer(new Outgoing(frame, sequence));
+        int depth = queueDepth.incrementAndGet();
+        if(depth > maxQueueDepth.get()){
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+        if(isParked){
+            LockSupport.unpark(publisherThread);
+        }
+    }
+
+    private void loop(){
+        ZMQ.Socket pub = context.socket(ZMQ.XPUB);
+        pub.setLinger(0);
+        pub.bind(endpoint);
+        logger.info("publisher bound to {}", endpoint);
+
+        while(!isPublisherStop){
+            readSubscriptions(pub);
+            int drained = 0;
+            Outgoing outgoing;
+            while(drained < MAX_DRAIN_BATCH && (outgoing = queue.poll()) != null){
+                drained++;
+                if(!isSubscribed(outgoing.frame)){
+                    unsubscribedCount.incrementAndGet();
+                    continue;
+                }
+                pub.sendMore(outgoing.frame);
+                pub.send(MessageCodec.encodeSequence(outgoing.sequence));
+            }
+            if(drained > 0){
+                queueDepth.addAndGet(-drained);
+                recordDrain(drained);
+                continue;
+            }
+            // announce the park before the last look, a publish after this point will unpark us
+            isParked = true;
+            if(queue.isEmpty() && !isPublisherStop){
+                LockSupport.park(this);
+            }
+            isParked = false;
+        }
+        pub.close();
+    }
+
+    // XPUB hands over [1][prefix] for a new subscription and [0][prefix] once its last subscriber is gone
+    private void readSubscriptions(ZMQ.Socket pub){
+        byte[] message;
+        while((message = pub.recv(ZMQ.DONTWAIT)) != null){
+            if(message.length == 0) continue;
+            boolean isSubscribe = message[0] == 1;
+            int length = message.length - 1;
+            if(length > MessageCodec.HEADER_SIZE){
+                longSubscriptions += isSubscribe ? 1 : -1;
+            }else{
+                long topic = topicKey(message, 1, length);
+                int index = Arrays.binarySearch(subscriptions, 0, subscriptionCount, topic);
+                if(isSubscribe && index < 0){
+                    index = -index - 1;
+                    if(subscriptionCount == subscriptions.length){
+                        subscriptions = Arrays.copyOf(subscriptions, subscriptionCount * 2);
+                    }
+                    System.arraycopy(subscriptions, index, subscriptions, index + 1, subscriptionCount - index);
+                    subscriptions[index] = topic;
+                    subscriptionCount++;
+                }else if(!isSubscribe && index >= 0){
+                    System.arraycopy(subscriptions, index + 1, subscriptions, index, subscriptionCount - index - 1);
+                    subscriptionCount--;
+                }
+            }
+            logger.debug("{} {} byte topic", isSubscribe ? "subscribed to" : "unsubscribed from", length);
+        }
+    }
+
+    private boolean isSubscribed(byte[] frame){
+        if(longSubscriptions > 0) return true;
+        int max = Math.min(frame.length, MessageCodec.HEADER_SIZE);
+        for(int length = 0; length <= max; length++){
+            if(Arrays.binarySearch(subscriptions, 0, subscriptionCount, topicKey(frame, length)) >= 0) return true;
+        }
+        return false;
+    }
+
+    private static long topicKey(byte[] frame, int length){
+        return topicKey(frame, 0, length);
+    }
+
+    // a prefix of at most HEADER_SIZE bytes and its length in one long
+    private static long topicKey(byte[] buf, int offset, int length){
+        long key = length;
+        for(int i = 0; i < length; i++){
+            key = (key << 8) | (buf[offset + i] & 0xff);
+        }
+        return key;
+    }
+
+    // a queued frame and its sequence
+    private static class Outgoing{
+        final byte[] frame;
+        final int sequence;
+
+        Outgoing(byte[] frame, int sequence){
+            this.frame = frame;
+            this.sequence = sequence;
+        }
+    }
+
+    private void recordDrain(int drained){
+        lastDrainBatchSize = drained;
+        if(drained > maxDrainBatchSize) maxDrainBatchSize = drained;
+        publishedCount.addAndGet(drained);
+        drainCount.incrementAndGet();
+    }
+
+    /**
+     * metrics lookups
+     */
+
+    public int getQueueDepth(){
+        return queueDepth.get();
+    }
+
+    public int getMaxQueueDepth(){
+        return maxQueueDepth.get();
+    }
+
+    public int getLastDrainBatchSize(){
+        return lastDrainBatchSize;
+    }
+
+    public int getMaxDrainBatchSize(){
+        return maxDrainBatchSize;
+    }
+
+    public double getAverageDrainBatchSize(){
+        long drains = drainCount.get();
+        return drains == 0 ? 0 : (double) publishedCount.get() / drains;
+    }
+
+    public long getPublishedCount(){
+        return publishedCount.get();
+    }
+
+    // frames dropped because nobody subscribed to them
+    public long getUnsubscribedCount(){
+        return unsubscribedCount.get();
+    }
+
+    public String getMetrics(){
+        return String.format("published: %d, unsubscribed: %d, queue depth: %d (max %d), drain batch: last %d, avg %.1f, max %d",
+                getPublishedCount(), getUnsubscribedCount(), getQueueDepth(), getMaxQueueDepth(),
+                getLastDrainBatchSize(), getAverageDrainBatchSize(), getMaxDrainBatchSize());
+    }
+}
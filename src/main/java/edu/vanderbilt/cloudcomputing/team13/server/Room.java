@@ -0,0 +1,274 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import edu.vanderbilt.cloudcomputing.team13.client.GameState;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageReader;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageWriter;
+import edu.vanderbilt.cloudcomputing.team13.util.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * State of one game hosted by the server: its players, ready states, drawer and word.
+ * A room is confined to the event loop it is hashed to (see EventLoopGroup), all its handlers run on that one thread,
+ * so none of these methods need locking.
+ */
+public class Room {
+    // the winner of a round that ended because its players left
+    public static final String NO_WINNER = "";
+
+    private final int roomId;
+    private final GameState gameState = new GameState();
+    private boolean isGameEnd = true;
+    // the drawing of the current round, for players joining late
+    private final StrokeLog strokeLog = new StrokeLog();
+    // numbers the ink frames the room publishes, one count over points, point runs and curves, so that a snapshot
+    // tells a joining player which of them it holds already
+    private int inkSequence = 0;
+    // numbers the other frames the room publishes, per opcode
+    private final int[] sequences = new int[MessageCodec.MAX_OPCODE + 1];
+    // answers of the current round, null between rounds
+    private GuessMatcher guessMatcher = null;
+    private List<String> synonyms = Collections.emptyList();
+    // the words this room plays, without repeats
+    private final WordDictionary dictionary;
+    private final WordPicker wordPicker;
+    // counts the joins and leaves, every change is broadcast as a delta with the version it leads to
+    private int rosterVersion = 0;
+    // the serialised roster and the version it has
+    private byte[] roster = null;
+    private int rosterVersionSerialised = 0;
+
+    public Room(int roomId, WordDictionary dictionary){
+        this.roomId = roomId;
+        this.dictionary = dictionary;
+        this.wordPicker = new WordPicker(dictionary);
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    public boolean isGameEnd() {
+        return isGameEnd;
+    }
+
+    public int getCurPlayerNum(){
+        return gameState.getCurPlayerNum();
+    }
+
+    public StrokeLog getStrokeLog() {
+        return strokeLog;
+    }
+
+    /**
+     * the publish sequence of the next ink frame, also counted while replaying the journal
+     */
+    public int nextInkSequence(){
+        return ++inkSequence;
+    }
+
+    /**
+     * the publish sequence of the next frame with this opcode, ink frames take nextInkSequence instead
+     */
+    public int nextSequence(byte opcode){
+        return ++sequences[opcode];
+    }
+
+    /**
+     * the ServerSnapshot frame of the drawing, with the sequence of the last ink frame in it
+     */
+    public byte[] snapshot(){
+        return strokeLog.snapshot(roomId, inkSequence);
+    }
+
+    public String getWord(){
+        return gameState.getWord();
+    }
+
+    public List<String> getSynonyms(){
+        return synonyms;
+    }
+
+    /**
+     * add a player to this room, returns the ServerRosterDelta frame to broadcast, or null if the player was in
+     * the room already; a full room rejects the player with an IllegalStateException
+     */
+    public byte[] addPlayer(String playerId, String playerIp, String playerName){
+        if(gameState.getPlayers().contains(playerId)) return null;
+        // the player gets the lowest free position
+        if(!gameState.addPlayer(playerIp, playerName, playerId)){
+            throw new IllegalStateException("room " + roomId + " is full, rejected " + playerId);
+        }
+        return MessageCodec.encodeRosterDelta(roomId, ++rosterVersion, MessageCodec.ROSTER_JOIN,
+                gameState.getPlayers().get(playerId));
+    }
+
+    /**
+     * remove a player from this room, returns the ServerRosterDelta frame to broadcast, or null if there is no
+     * such player. A round nobody can finish any more, because its drawer left or nobody is left to guess, ends
+     * without a winner; see isGameEnd()
+     */
+    public byte[] removePlayer(String playerId){
+        Player player = gameState.getPlayers().get(playerId);
+        if(player == null) return null;
+        boolean isDrawer = playerId.equals(gameState.getDrawerId());
+        gameState.removePlayer(playerId);
+        if(!isGameEnd && (isDrawer || gameState.getCurPlayerNum() < 2)){
+            endGame(NO_WINNER);
+        }
+        return MessageCodec.encodeRosterDelta(roomId, ++rosterVersion, MessageCodec.ROSTER_LEAVE, player);
+    }
+
+    /**
+     * the ServerNewPlayerList frame of the current roster, serialised again only after the roster changed
+     */
+    public byte[] getRoster(){
+        if(roster == null || rosterVersionSerialised != rosterVersion){
+            roster = MessageCodec.encodePlayerList(roomId, rosterVersion, gameState.getPlayers().list());
+            rosterVersionSerialised = rosterVersion;
+        }
+        return roster;
+    }
+
+    public int getRosterVersion(){
+        return rosterVersion;
+    }
+
+    /**
+     * returns false if the ready state was ignored because a game is on-going
+     */
+    public boolean setPlayerReady(String playerId, boolean readyState){
+        if(!isGameEnd) return false;
+        gameState.setPlayerReady(playerId, readyState);
+        return true;
+    }
+
+    /**
+     * start a game if all players are ready, returns the id of the randomly picked drawer or null;
+     * the word is the next one of this room's picker
+     */
+    public String tryStartGame(){
+        if(!isGameEnd || !gameState.getPlayers().isAllReady()) return null;
+
+        // randomly pick a drawer
+        String pickedPlayerID = gameState.getPlayers().pickRandom().getId();
+        int word = wordPicker.next();
+        startGame(pickedPlayerID, dictionary.word(word), dictionary.synonyms(word));
+        return pickedPlayerID;
+    }
+
+    /**
+     * start a game with this drawer, word and synonyms, also used to replay a journaled ServerNewGame
+     */
+    public void startGame(String drawerId, String word, List<String> synonyms){
+        isGameEnd = false;
+        strokeLog.clear();
+        gameState.startNewGame(drawerId, word);
+        this.synonyms = synonyms;
+        guessMatcher = new GuessMatcher(word, synonyms);
+    }
+
+    /**
+     * check a guess of this player against the word of the round, MessageCodec.GUESS_CORRECT, GUESS_CLOSE or
+     * GUESS_WRONG; guesses of the drawer, of strangers and between rounds are always wrong
+     */
+    public int checkGuess(String playerId, String text){
+        if(isGameEnd || guessMatcher == null) return MessageCodec.GUESS_WRONG;
+        if(playerId.equals(gameState.getDrawerId()) || !gameState.getPlayers().contains(playerId)){
+            return MessageCodec.GUESS_WRONG;
+        }
+        return guessMatcher.match(text);
+    }
+
+    /**
+     * end the game with this winner, returns false if there is no on-going game
+     */
+    public boolean declareWinner(String winnerId){
+        if(isGameEnd) return false;
+        endGame(winnerId);
+        return true;
+    }
+
+    /**
+     * the whole state of this room as one journal record, replaying it with restore() replaces everything the
+     * records before it built: [rosterVersion:int][count:short] then [id][ip][name][position:short][ready:byte] per
+     * player, [gameOn:byte] then [drawerId][word][count:short][synonym...] if a round is on, [length:int][snapshot]
+     */
+    public byte[] checkpoint(){
+        List<Player> players = gameState.getPlayers().list();
+        byte[] snapshot = snapshot();
+        MessageWriter writer = new MessageWriter(MessageCodec.JOURNAL_CHECKPOINT, roomId, 64 + snapshot.length)
+                .writeInt(rosterVersion)
+                .writeShort(players.size());
+        for(Player player : players){
+            writer.writeString(player.getId())
+                    .writeString(player.getIp())
+                    .writeString(player.getName())
+                    .writeShort(player.getPosition())
+                    .writeBoolean(player.isReady());
+        }
+        writer.writeBoolean(!isGameEnd);
+        if(!isGameEnd){
+            writer.writeString(gameState.getDrawerId())
+                    .writeString(gameState.getWord())
+                    .writeShort(synonyms.size());
+            for(String synonym : synonyms){
+                writer.writeString(synonym);
+            }
+        }
+        return writer.writeInt(snapshot.length).writeBytes(snapshot, 0, snapshot.length).toByteArray();
+    }
+
+    /**
+     * replace the state of this room by a JOURNAL_CHECKPOINT frame of checkpoint()
+     */
+    public void restore(byte[] checkpoint){
+        MessageReader reader = new MessageReader(checkpoint);
+        int version = reader.readInt();
+        for(Player player : gameState.getPlayers().list()){
+            gameState.removePlayer(player.getId());
+        }
+        List<String> ready = new ArrayList<>();
+        int count = reader.readShort();
+        for(int i = 0; i < count; i++){
+            String playerId = reader.readString();
+            String playerIp = reader.readString();
+            String playerName = reader.readString();
+            int position = reader.readShort();
+            if(reader.readBoolean()) ready.add(playerId);
+            gameState.addPlayer(playerIp, playerName, playerId, Integer.toString(position));
+        }
+        rosterVersion = version;
+        roster = null;
+        if(reader.readBoolean()){
+            String drawerId = reader.readString();
+            String word = reader.readString();
+            List<String> words = new ArrayList<>();
+            int synonymCount = reader.readShort();
+            for(int i = 0; i < synonymCount; i++){
+                words.add(reader.readString());
+            }
+            startGame(drawerId, word, words);
+        }else if(!isGameEnd){
+            endGame(NO_WINNER);
+        }
+        // a new round clears the ready states, set them afterwards
+        gameState.clearReady();
+        for(String playerId : ready){
+            gameState.setPlayerReady(playerId, true);
+        }
+        inkSequence = strokeLog.restore(reader.readBytes(reader.readInt()));
+    }
+
+    private void endGame(String winnerId){
+        isGameEnd = true;
+        gameState.setWinnerId(winnerId);
+        gameState.setGameEnd(true);
+        gameState.clearReady();
+        gameState.clearDrawer();
+        guessMatcher = null;
+    }
+}
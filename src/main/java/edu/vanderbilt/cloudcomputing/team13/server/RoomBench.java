@@ -0,0 +1,139 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.zeromq.ZMQ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Request latency as the number of rooms grows, runnable without a benchmark harness. A server is started in this
+ * process on the usual ports, with its journal in a temporary directory. For each room count, one player joins every
+ * new room. Then CliNewPoint requests go round-robin over all rooms, 256 at a time as a client's RequestChannel sends
+ * them, and each round trip is timed. A room costs only its own state, so the latency should stay flat as the rooms
+ * grow. At the end every player leaves, and a point sent to any of the rooms must then be rejected because an empty
+ * room is removed. A failed request or check exits with status 1.
+ *
+ *   RoomBench [maxRooms] [requestsPerStep]
+ */
+public class RoomBench {
+    private static final Logger logger = LogManager.getLogger(RoomBench.class.getName());
+
+    // requests in flight, as many as a RequestChannel allows
+    private static final int WINDOW = 256;
+    private static final int RECEIVE_TIMEOUT_MILLIS = 10000;
+
+    private final ZMQ.Socket dealer;
+    private int nextCorrelationId = 0;
+
+    private RoomBench(ZMQ.Socket dealer){
+        this.dealer = dealer;
+    }
+
+    public static void main(String[] args) throws IOException{
+        int maxRooms = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+
+        // the server logs every request at debug level, which would be most of what is measured
+        Configurator.setLevel(GameServer.class.getPackage().getName(), Level.INFO);
+        File journalDirectory = Files.createTempDirectory("roombench").toFile();
+        // no dictionary there, every round would be about the fallback word
+        GameServer server = new GameServer("127.0.0.1", journalDirectory, new File(journalDirectory, "words.dict"));
+        Thread serverThread = new Thread(server, "server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        ZMQ.Context context = ZMQ.context(1);
+        ZMQ.Socket dealer = context.socket(ZMQ.DEALER);
+        dealer.setReceiveTimeOut(RECEIVE_TIMEOUT_MILLIS);
+        // requests wait in the socket until the server has replayed its journal and bound
+        dealer.connect("tcp://127.0.0.1:5555");
+        RoomBench bench = new RoomBench(dealer);
+
+        int failures = 0;
+        int rooms = 0;
+        for(int step = 1; step <= maxRooms; step *= 10){
+            byte[][] joins = new byte[step - rooms][];
+            for(int i = 0; i < joins.length; i++, rooms++){
+                joins[i] = MessageCodec.encodeNewPlayer(rooms, playerId(rooms), "127.0.0.1", "p" + rooms);
+            }
+            // a join is answered with a snapshot
+            failures += bench.exchange(joins, joins.length, false, null);
+
+            byte[][] points = new byte[rooms][];
+            for(int room = 0; room < rooms; room++){
+                points[room] = MessageCodec.encodePoint(MessageCodec.CLI_NEW_POINT, room, room % 800, room % 600);
+            }
+            long[] latencies = new long[requests];
+            long begin = System.nanoTime();
+            int failed = bench.exchange(points, requests, false, latencies);
+            long elapsed = System.nanoTime() - begin;
+            Arrays.sort(latencies);
+            logger.info("{} rooms: {} requests/s, latency median {} us, p99 {} us, max {} us, {} failed", rooms,
+                    Math.round(requests / (elapsed / 1e9)), latencies[requests / 2] / 1000,
+                    latencies[requests - requests / 100 - 1] / 1000, latencies[requests - 1] / 1000, failed);
+            failures += failed;
+        }
+
+        byte[][] leaves = new byte[rooms][];
+        byte[][] points = new byte[rooms][];
+        for(int room = 0; room < rooms; room++){
+            leaves[room] = MessageCodec.encodePlayerLeave(room, playerId(room));
+            points[room] = MessageCodec.encodePoint(MessageCodec.CLI_NEW_POINT, room, 1, 1);
+        }
+        failures += bench.exchange(leaves, rooms, false, null);
+        int accepted = bench.exchange(points, rooms, true, null);
+        if(accepted > 0){
+            logger.error("failed: {} of {} empty rooms still took a point", accepted, rooms);
+            failures++;
+        }
+
+        for(File file : journalDirectory.listFiles()) file.delete();
+        journalDirectory.delete();
+        if(failures > 0) System.exit(1);
+        System.exit(0);
+    }
+
+    /**
+     * send count requests round-robin over frames, WINDOW of them in flight, and wait for all replies; returns how
+     * many were not answered as expected. latencies, if not null, gets the round trip of every request
+     */
+    private int exchange(byte[][] frames, int count, boolean isErrorExpected, long[] latencies){
+        // by correlation id, replies of different rooms come back in any order
+        long[] sentAt = new long[count];
+        int first = nextCorrelationId;
+        int failures = 0;
+        int sent = 0;
+        int received = 0;
+        while(received < count){
+            while(sent < count && sent - received < WINDOW){
+                sentAt[sent] = System.nanoTime();
+                // [correlation id:int][frame], as a RequestChannel sends it
+                dealer.sendMore(MessageCodec.encodeSequence(nextCorrelationId++));
+                dealer.send(frames[sent % frames.length]);
+                sent++;
+            }
+            byte[] id = dealer.recv();
+            if(id == null){
+                logger.error("failed: no reply within {} ms", RECEIVE_TIMEOUT_MILLIS);
+                return failures + count - received;
+            }
+            byte[] reply = dealer.recv();
+            if(latencies != null) latencies[received] = System.nanoTime() - sentAt[MessageCodec.decodeSequence(id) - first];
+            received++;
+            boolean isError = MessageCodec.opcode(reply) == MessageCodec.REPLY_ERROR;
+            if(isError != isErrorExpected) failures++;
+        }
+        return failures;
+    }
+
+    private static String playerId(int room){
+        return "127.0.0.1:p" + room;
+    }
+}
@@ -0,0 +1,41 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All rooms hosted by one server process, by room id. A room is created by the first player joining it
+ * and removed once the last one left, both on the room's event loop.
+ */
+public class RoomRegistry {
+    private final ConcurrentHashMap<Integer, Room> rooms = new ConcurrentHashMap<>();
+    // shared by all rooms, each room picks from it on its own
+    private final WordDictionary dictionary;
+
+    public RoomRegistry(WordDictionary dictionary){
+        this.dictionary = dictionary;
+    }
+
+    public Room getOrCreate(int roomId){
+        return rooms.computeIfAbsent(roomId, id -> new Room(id, dictionary));
+    }
+
+    // null if nobody is in this room
+    public Room get(int roomId){
+        return rooms.get(roomId);
+    }
+
+    // the next player joining gets a new room
+    public void remove(Room room){
+        rooms.remove(room.getRoomId(), room);
+    }
+
+    // a live view, rooms created meanwhile may or may not be in it
+    public Collection<Room> getRooms(){
+        return rooms.values();
+    }
+
+    public int getRoomCount(){
+        return rooms.size();
+    }
+}
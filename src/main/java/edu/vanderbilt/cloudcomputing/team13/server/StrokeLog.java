@@ -0,0 +1,176 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import edu.vanderbilt.cloudcomputing.team13.util.CanvasSpec;
+import edu.vanderbilt.cloudcomputing.team13.util.CurveFitter;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageCodec;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageReader;
+import edu.vanderbilt.cloudcomputing.team13.util.MessageView;
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeDecoder;
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeEncoder;
+import edu.vanderbilt.cloudcomputing.team13.util.StrokeRaster;
+
+/**
+ * Everything drawn in the current round of a room, kept so that a player joining late sees the drawing.
+ * New points go to a delta-encoded tail (see StrokeEncoder). Once the tail holds compactPoints points it is
+ * stamped into a raster of the canvas and the deflated raster becomes the new keyframe, so a snapshot
+ * (keyframe plus tail, one ServerSnapshot frame) stays about the same size however long the round runs.
+ *
+ * Confined to the event loop of its room like the room itself.
+ */
+public class StrokeLog {
+    public static final int DEFAULT_COMPACT_POINTS = 2048;
+
+    private final StrokeRaster raster;
+    private final int compactPoints;
+    // the deflated raster, null while nothing has been compacted
+    private byte[] keyframe = null;
+    private final StrokeEncoder tail = new StrokeEncoder(4096);
+    // the stroke being drawn, carried over into the next tail by a compaction
+    private boolean isStrokeOpen = false;
+    private double lastX;
+    private double lastY;
+    private int compactions = 0;
+
+    // reused to decode frames, the log runs on one thread
+    private final StrokeDecoder decoder = new StrokeDecoder();
+
+    public StrokeLog(){
+        this(CanvasSpec.BRUSH_WIDTH, DEFAULT_COMPACT_POINTS);
+    }
+
+    public StrokeLog(int brushWidth, int compactPoints){
+        if(compactPoints < 1 || compactPoints >= MessageCodec.MAX_BATCH_POINTS){
+            throw new IllegalArgumentException("invalid compaction size: " + compactPoints);
+        }
+        this.raster = new StrokeRaster(CanvasSpec.WIDTH, CanvasSpec.HEIGHT, brushWidth);
+        this.compactPoints = compactPoints;
+    }
+
+    public void addPoint(double x, double y){
+        tail.addPoint(x, y);
+        isStrokeOpen = true;
+        lastX = x;
+        lastY = y;
+        if(tail.getCount() >= compactPoints) compact();
+    }
+
+    public void addSeparator(){
+        // separators come on both mouse press and release, only one is needed between strokes
+        if(!isStrokeOpen) return;
+        tail.addSeparator();
+        isStrokeOpen = false;
+    }
+
+    // CliNewPoint, a point of Double.MAX_VALUE is a separator
+    public void appendPoint(MessageView frame){
+        double x = frame.pointX();
+        double y = frame.pointY();
+        if(x == Double.MAX_VALUE && y == Double.MAX_VALUE){
+            addSeparator();
+        }else{
+            addPoint(x, y);
+        }
+    }
+
+    // CliNewPoints
+    public void appendPoints(MessageView frame){
+        decoder.reset(frame);
+        while(decoder.next()){
+            if(decoder.isSeparator()){
+                addSeparator();
+            }else{
+                addPoint(decoder.x(), decoder.y());
+            }
+        }
+    }
+
+    // CliNewCurves, logged as the points the receivers rebuild from the control points
+    public void appendCurves(MessageView frame){
+        double[] ctrl = new double[frame.pointCount() * 2];
+        int ctrlNum = 0;
+        decoder.reset(frame);
+        while(decoder.next()){
+            if(decoder.isSeparator()){
+                CurveFitter.sample(ctrl, ctrlNum, this::addPoint);
+                ctrlNum = 0;
+                addSeparator();
+            }else{
+                ctrl[ctrlNum * 2] = decoder.x();
+                ctrl[ctrlNum * 2 + 1] = decoder.y();
+                ctrlNum++;
+            }
+        }
+        CurveFitter.sample(ctrl, ctrlNum, this::addPoint);
+    }
+
+    // a new round starts on a blank canvas
+    public void clear(){
+        raster.clear();
+        keyframe = null;
+        tail.reset();
+        isStrokeOpen = false;
+    }
+
+    // inkSequence is the sequence of the last ink frame of the room in the log
+    public byte[] snapshot(int roomId, int inkSequence){
+        return MessageCodec.encodeSnapshot(roomId, inkSequence, CanvasSpec.WIDTH, CanvasSpec.HEIGHT, keyframe, tail);
+    }
+
+    // back to the drawing of a snapshot, used to restore a journal checkpoint; returns the snapshot's ink sequence
+    public int restore(byte[] snapshot){
+        clear();
+        MessageReader reader = new MessageReader(snapshot);
+        int inkSequence = reader.readInt();
+        int width = reader.readShort();
+        int height = reader.readShort();
+        int keyframeLength = reader.readInt();
+        if(keyframeLength > 0){
+            keyframe = reader.readBytes(keyframeLength);
+            raster.copyFrom(StrokeRaster.decompress(keyframe, width, height));
+        }
+        decoder.reset(snapshot, reader.position(), snapshot.length);
+        while(decoder.next()){
+            if(decoder.isSeparator()){
+                addSeparator();
+            }else{
+                addPoint(decoder.x(), decoder.y());
+            }
+        }
+        return inkSequence;
+    }
+
+    public int getTailPoints(){
+        return tail.getCount();
+    }
+
+    public int getCompactions(){
+        return compactions;
+    }
+
+    // stamp the tail into the raster and start a new tail
+    private void compact(){
+        decoder.reset(tail.toFrame(MessageCodec.SERVER_NEW_POINTS, 0));
+        boolean isOpen = false;
+        int prevX = 0;
+        int prevY = 0;
+        while(decoder.next()){
+            if(decoder.isSeparator()){
+                isOpen = false;
+            }else{
+                if(isOpen){
+                    raster.drawLine(prevX, prevY, decoder.x(), decoder.y());
+                }else{
+                    raster.drawPoint(decoder.x(), decoder.y());
+                }
+                prevX = decoder.x();
+                prevY = decoder.y();
+                isOpen = true;
+            }
+        }
+        keyframe = raster.compress();
+        tail.reset();
+        // the stroke being drawn goes on from its last point
+        if(isStrokeOpen) tail.addPoint(lastX, lastY);
+        compactions++;
+    }
+}
@@ -0,0 +1,304 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The words a round can be about, compiled from a text list into a file that is memory-mapped as it is:
+ * opening a dictionary reads the header and the category table, the words stay in the page cache until picked.
+ *
+ *   header     [magic:int][version:int][wordCount:int][categoryCount:int][entriesOffset:int][stringsOffset:int]
+ *   categories [first:int][count:int][name] per category
+ *   entries    [stringOffset:int][stringLength:short][difficulty:byte][category:byte] per word
+ *   strings    the word and its synonyms, UTF-8, separated by SEPARATOR
+ *
+ * The words of a category are consecutive, so a category is a range of word indices. The source list is one word
+ * per line, tab separated: word, category, difficulty (1 easy to 3 hard) and comma separated synonyms, the last
+ * three are optional; blank lines and lines starting with # are skipped. Compile it with
+ *
+ *   WordDictionary <words.tsv> <words.dict>
+ *
+ * Read only and safe to share between event loops.
+ */
+public class WordDictionary {
+    private static final Logger logger = LogManager.getLogger(WordDictionary.class.getName());
+
+    public static final int MAGIC = 0x44475744;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 24;
+    public static final int ENTRY_SIZE = 8;
+    public static final int MAX_CATEGORIES = 0x100;
+    public static final char SEPARATOR = '\u001f';
+    public static final String DEFAULT_CATEGORY = "general";
+    public static final int DEFAULT_DIFFICULTY = 1;
+    // the word of every round when there is no dictionary
+    public static final String FALLBACK_WORD = "FindMeUnays";
+
+    private final ByteBuffer buffer;
+    private final int wordCount;
+    private final int entriesOffset;
+    private final int stringsOffset;
+    private final String[] categoryNames;
+    private final int[] categoryFirsts;
+    private final int[] categoryCounts;
+
+    WordDictionary(ByteBuffer buffer){
+        this.buffer = buffer;
+        if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC){
+            throw new IllegalArgumentException("not a word dictionary");
+        }
+        if(buffer.getInt(4) != VERSION){
+            throw new IllegalArgumentException("unsupported dictionary version: " + buffer.getInt(4));
+        }
+        wordCount = buffer.getInt(8);
+        int categoryCount = buffer.getInt(12);
+        entriesOffset = buffer.getInt(16);
+        stringsOffset = buffer.getInt(20);
+        if(wordCount <= 0 || categoryCount <= 0 || categoryCount > MAX_CATEGORIES || stringsOffset > buffer.capacity()
+                || entriesOffset + (long) wordCount * ENTRY_SIZE != stringsOffset){
+            throw new IllegalArgumentException("bad dictionary header");
+        }
+        categoryNames = new String[categoryCount];
+        categoryFirsts = new int[categoryCount];
+        categoryCounts = new int[categoryCount];
+        int pos = HEADER_SIZE;
+        for(int c = 0; c < categoryCount; c++){
+            categoryFirsts[c] = buffer.getInt(pos);
+            categoryCounts[c] = buffer.getInt(pos + 4);
+            int length = buffer.getShort(pos + 8) & 0xffff;
+            categoryNames[c] = decode(pos + 10, length);
+            pos += 10 + length;
+        }
+        if(pos != entriesOffset){
+            throw new IllegalArgumentException("bad dictionary category table");
+        }
+    }
+
+    // maps the file, the mapping outlives the channel
+    public static WordDictionary open(File file) throws IOException{
+        try(FileChannel channel = new FileInputStream(file).getChannel()){
+            return new WordDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // the dictionary file, or the fallback word alone if there is none
+    public static WordDictionary openOrFallback(File file){
+        if(file.isFile()){
+            try{
+                WordDictionary dictionary = open(file);
+                logger.info("dictionary {}: {} words in {} categories", file, dictionary.getWordCount(),
+                        dictionary.getCategoryCount());
+                return dictionary;
+            }catch (IOException | IllegalArgumentException e){
+                logger.warn("cannot open dictionary {}", file, e);
+            }
+        }else{
+            logger.warn("no dictionary at {}, every round is about {}", file, FALLBACK_WORD);
+        }
+        return fallback();
+    }
+
+    public static WordDictionary fallback(){
+        try{
+            return new WordDictionary(ByteBuffer.wrap(compile(new BufferedReader(new StringReader(FALLBACK_WORD)))));
+        }catch (IOException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * word lookups
+     */
+
+    public int getWordCount(){
+        return wordCount;
+    }
+
+    public String word(int index){
+        int entry = entry(index);
+        int offset = stringsOffset + buffer.getInt(entry);
+        int length = buffer.getShort(entry + 4) & 0xffff;
+        int end = offset;
+        while(end < offset + length && buffer.get(end) != SEPARATOR) end++;
+        return decode(offset, end - offset);
+    }
+
+    public List<String> synonyms(int index){
+        int entry = entry(index);
+        String[] parts = decode(stringsOffset + buffer.getInt(entry), buffer.getShort(entry + 4) & 0xffff)
+                .split(String.valueOf(SEPARATOR));
+        if(parts.length == 1) return Collections.emptyList();
+        List<String> synonyms = new ArrayList<>(parts.length - 1);
+        for(int i = 1; i < parts.length; i++){
+            synonyms.add(parts[i]);
+        }
+        return synonyms;
+    }
+
+    public int difficulty(int index){
+        return buffer.get(entry(index) + 6) & 0xff;
+    }
+
+    public int category(int index){
+        return buffer.get(entry(index) + 7) & 0xff;
+    }
+
+    /**
+     * category lookups
+     */
+
+    public int getCategoryCount(){
+        return categoryNames.length;
+    }
+
+    public String getCategoryName(int category){
+        return categoryNames[category];
+    }
+
+    // -1 if there is no such category
+    public int categoryOf(String name){
+        for(int c = 0; c < categoryNames.length; c++){
+            if(categoryNames[c].equals(name)) return c;
+        }
+        return -1;
+    }
+
+    // the words of a category are the indices [first, first + count)
+    public int getCategoryFirst(int category){
+        return categoryFirsts[category];
+    }
+
+    public int getCategoryWordCount(int category){
+        return categoryCounts[category];
+    }
+
+    private int entry(int index){
+        if(index < 0 || index >= wordCount){
+            throw new IndexOutOfBoundsException("word " + index + " of " + wordCount);
+        }
+        return entriesOffset + index * ENTRY_SIZE;
+    }
+
+    private String decode(int offset, int length){
+        byte[] bytes = new byte[length];
+        for(int i = 0; i < length; i++){
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * compiling a word list
+     */
+
+    public static byte[] compile(BufferedReader in) throws IOException{
+        // words grouped by category, categories in order of first appearance
+        Map<String, List<String[]>> categories = new LinkedHashMap<>();
+        String line;
+        int lineNumber = 0;
+        while((line = in.readLine()) != null){
+            lineNumber++;
+            if(line.trim().isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("\t", -1);
+            String word = fields[0].trim();
+            if(word.isEmpty() || word.indexOf(SEPARATOR) >= 0){
+                throw new IllegalArgumentException("bad word on line " + lineNumber);
+            }
+            String category = fields.length > 1 && !fields[1].trim().isEmpty() ? fields[1].trim() : DEFAULT_CATEGORY;
+            String difficulty = fields.length > 2 && !fields[2].trim().isEmpty() ? fields[2].trim() : Integer.toString(DEFAULT_DIFFICULTY);
+            String synonyms = fields.length > 3 ? fields[3] : "";
+            List<String[]> words = categories.get(category);
+            if(words == null){
+                if(categories.size() == MAX_CATEGORIES){
+                    throw new IllegalArgumentException("more than " + MAX_CATEGORIES + " categories on line " + lineNumber);
+                }
+                words = new ArrayList<>();
+                categories.put(category, words);
+            }
+            words.add(new String[]{word, difficulty, synonyms});
+        }
+
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        DataOutputStream entryOut = new DataOutputStream(entries);
+        DataOutputStream tableOut = new DataOutputStream(table);
+        int wordCount = 0;
+        int category = 0;
+        for(Map.Entry<String, List<String[]>> c : categories.entrySet()){
+            byte[] name = c.getKey().getBytes(StandardCharsets.UTF_8);
+            tableOut.writeInt(wordCount);
+            tableOut.writeInt(c.getValue().size());
+            tableOut.writeShort(name.length);
+            tableOut.write(name);
+            for(String[] w : c.getValue()){
+                StringBuilder text = new StringBuilder(w[0]);
+                for(String synonym : w[2].split(",")){
+                    if(!synonym.trim().isEmpty()) text.append(SEPARATOR).append(synonym.trim());
+                }
+                byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+                int difficulty = Integer.parseInt(w[1]);
+                if(bytes.length > 0xffff || difficulty < 0 || difficulty > 0xff){
+                    throw new IllegalArgumentException("bad entry for " + w[0]);
+                }
+                entryOut.writeInt(strings.size());
+                entryOut.writeShort(bytes.length);
+                entryOut.writeByte(difficulty);
+                entryOut.writeByte(category);
+                strings.write(bytes);
+                wordCount++;
+            }
+            category++;
+        }
+        if(wordCount == 0){
+            throw new IllegalArgumentException("no words");
+        }
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream(HEADER_SIZE + table.size() + entries.size() + strings.size());
+        DataOutputStream out = new DataOutputStream(file);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(wordCount);
+        out.writeInt(categories.size());
+        out.writeInt(HEADER_SIZE + table.size());
+        out.writeInt(HEADER_SIZE + table.size() + entries.size());
+        table.writeTo(out);
+        entries.writeTo(out);
+        strings.writeTo(out);
+        return file.toByteArray();
+    }
+
+    public static void main(String[] args) throws IOException{
+        File source = new File(args[0]);
+        File target = new File(args[1]);
+        byte[] compiled;
+        try(BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(source), StandardCharsets.UTF_8))){
+            compiled = compile(in);
+        }
+        try(FileOutputStream out = new FileOutputStream(target)){
+            out.write(compiled);
+        }
+        long begin = System.nanoTime();
+        WordDictionary dictionary = open(target);
+        logger.info("compiled {} words in {} categories into {} bytes, opened in {} us", dictionary.getWordCount(),
+                dictionary.getCategoryCount(), compiled.length, (System.nanoTime() - begin) / 1000);
+    }
+}
@@ -0,0 +1,67 @@
+package edu.vanderbilt.cloudcomputing.team13.server;
+
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the words of one room at random without repeats: the words are a shuffled permutation walked by a cursor,
+ * and a word comes back only once every other word has been picked. The permutation is a Fisher-Yates shuffle done
+ * one step per pick, only positions that were swapped are stored, so a pick is O(1) and a room that played a
+ * hundred rounds holds a hundred entries however large the dictionary is.
+ *
+ * Confined to the event loop of its room.
+ */
+public class WordPicker {
+    private final int first;
+    private final int count;
+    // positions of the permutation that no longer hold their own index, position -> index
+    private final HashMap<Integer, Integer> swapped = new HashMap<>();
+    // positions before the cursor have been picked in this pass
+    private int cursor = 0;
+    private int passes = 0;
+
+    // all words of the dictionary
+    public WordPicker(WordDictionary dictionary){
+        this(0, dictionary.getWordCount());
+    }
+
+    // the word indices [first, first + count), a category for example
+    public WordPicker(int first, int count){
+        if(count <= 0){
+            throw new IllegalArgumentException("nothing to pick from");
+        }
+        this.first = first;
+        this.count = count;
+    }
+
+    // the index of the next word
+    public int next(){
+        if(cursor == count){
+            // every word was picked, start another permutation
+            swapped.clear();
+            cursor = 0;
+            passes++;
+        }
+        int position = cursor + ThreadLocalRandom.current().nextInt(count - cursor);
+        int picked = indexAt(position);
+        // the word at the cursor takes the place of the picked one, the cursor position is not looked at again
+        swapped.put(position, indexAt(cursor));
+        swapped.remove(cursor);
+        cursor++;
+        return first + picked;
+    }
+
+    // words left before one repeats
+    public int getRemaining(){
+        return count - cursor;
+    }
+
+    public int getPasses(){
+        return passes;
+    }
+
+    private int indexAt(int position){
+        Integer index = swapped.get(position);
+        return index == null ? position : index;
+    }
+}
@@ -2,15 +2,19 @@ package edu.vanderbilt.cloudcomputing.team13.util;
 
 /**
  * Created by Chuilian Kong on 10/31/2017.
+ *
+ * A handler of one opcode. Actions keep no per-message state, the message comes with every call,
+ * so one instance serves any number of messages on any number of threads.
  */
-public class AbstractAction implements Runnable{
-    String para = null;
+public abstract class AbstractAction {
+    // para is a read-only view of the whole binary frame, see MessageCodec; it is only valid during the call
+    public void run(MessageView para){
 
-    public void setPara(String para) {
-        this.para = para;
     }
 
-    public void run(){
-
+    // the frame sent back to the requester, null answers OK. Actions answering with data override this instead of run
+    public byte[] call(MessageView para){
+        run(para);
+        return null;
     }
 }
@@ -0,0 +1,16 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+/**
+ * The canvas both sides draw on: the board window of a client, the stroke log of a server room,
+ * the snapshots and recordings made of it.
+ */
+public final class CanvasSpec {
+    // in window pixels
+    public static final int WIDTH = 800;
+    public static final int HEIGHT = 600;
+    // width of the drawn lines in window pixels, the old makeup points were 4x4 squares
+    public static final int BRUSH_WIDTH = 4;
+
+    private CanvasSpec(){
+    }
+}
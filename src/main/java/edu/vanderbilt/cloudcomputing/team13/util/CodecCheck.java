@@ -0,0 +1,199 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Round-trip checks of the wire format, runnable without a test harness: every frame MessageCodec and MessageWriter
+ * build is read back with MessageReader, every point run StrokeEncoder writes is read back with StrokeDecoder, and
+ * truncated input must be rejected. Logs each failed check and exits with status 1 if there was one.
+ *
+ *   CodecCheck [seed]
+ */
+public class CodecCheck {
+    private static final Logger logger = LogManager.getLogger(CodecCheck.class.getName());
+
+    private int checks = 0;
+    private int failures = 0;
+
+    private void check(boolean condition, String what){
+        checks++;
+        if(!condition){
+            failures++;
+            logger.error("failed: {}", what);
+        }
+    }
+
+    /**
+     * MessageCodec and MessageReader
+     */
+
+    private void checkPrimitives(){
+        byte[] frame = new MessageWriter(MessageCodec.CLI_GUESS, -7)
+                .writeByte(-1)
+                .writeBoolean(true)
+                .writeShort(0xffff)
+                .writeInt(Integer.MIN_VALUE)
+                .writeDouble(-0.5)
+                .writeString("")
+                .writeString("caf\u00e9 \u732b")
+                .toByteArray();
+        MessageReader reader = new MessageReader(frame);
+        check(reader.opcode() == MessageCodec.CLI_GUESS && reader.roomId() == -7, "header of a written frame");
+        check(reader.readByte() == -1, "signed byte");
+        check(reader.readBoolean(), "boolean");
+        check(reader.readShort() == 0xffff, "unsigned short");
+        check(reader.readInt() == Integer.MIN_VALUE, "int");
+        check(reader.readDouble() == -0.5, "double");
+        check(reader.readString().isEmpty(), "empty string");
+        check(reader.readString().equals("caf\u00e9 \u732b"), "UTF-8 string");
+        check(reader.remaining() == 0, "nothing left after the last field");
+        check(rejects(() -> reader.readByte()), "reading past the end");
+        check(rejects(() -> new MessageReader(Arrays.copyOf(frame, frame.length - 1)).readBytes(frame.length)),
+                "truncated frame");
+    }
+
+    private void checkMessages(){
+        byte[] point = MessageCodec.encodePoint(MessageCodec.CLI_NEW_POINT, 3, 12.25, -1e9);
+        check(MessageCodec.isPointFrame(point) && point.length == MessageCodec.POINT_FRAME_SIZE, "point frame size");
+        check(MessageCodec.roomId(point) == 3 && MessageCodec.pointX(point) == 12.25 && MessageCodec.pointY(point) == -1e9,
+                "point frame");
+        MessageView view = new MessageView(point);
+        byte[] published = view.copyAs(MessageCodec.SERVER_NEW_POINT);
+        check(MessageCodec.opcode(published) == MessageCodec.SERVER_NEW_POINT && view.opcode() == MessageCodec.CLI_NEW_POINT
+                && view.pointX() == 12.25, "copyAs leaves the viewed frame alone");
+        check(view.reader().readDouble() == 12.25 && view.reader().readDouble() == 12.25, "the view's reader starts over");
+
+        MessageReader reader = new MessageReader(MessageCodec.encodeNewPlayer(5, "ip:name", "ip", "name"));
+        check(reader.opcode() == MessageCodec.CLI_NEW_PLAYER && reader.roomId() == 5, "CliNewPlayer header");
+        check(reader.readString().equals("ip:name") && reader.readString().equals("ip") && reader.readString().equals("name"),
+                "CliNewPlayer body");
+
+        reader = new MessageReader(MessageCodec.encodePlayerReady(MessageCodec.SERVER_PLAYER_READY, 5, "ip:name", true));
+        check(reader.readString().equals("ip:name") && reader.readBoolean() && reader.remaining() == 0, "PlayerReady");
+
+        List<String> synonyms = Arrays.asList("kitty", "feline");
+        reader = new MessageReader(MessageCodec.encodeNewGame(5, "ip:name", "cat", synonyms));
+        check(reader.readString().equals("ip:name") && reader.readString().equals("cat"), "ServerNewGame drawer and word");
+        int count = reader.readShort();
+        List<String> read = new ArrayList<>();
+        for(int i = 0; i < count; i++) read.add(reader.readString());
+        check(read.equals(synonyms), "ServerNewGame synonyms");
+
+        List<Player> players = new ArrayList<>();
+        for(int i = 0; i < 3; i++){
+            Player player = new Player("10.0.0." + i, "p" + i, null);
+            player.setPosition(i * 2);
+            players.add(player);
+        }
+        reader = new MessageReader(MessageCodec.encodePlayerList(5, 42, players));
+        check(reader.readInt() == 42 && reader.readShort() == players.size(), "ServerNewPlayerList version and count");
+        for(Player player : players){
+            check(reader.readString().equals(player.getId()) && reader.readString().equals(player.getIp())
+                    && reader.readString().equals(player.getName()) && reader.readShort() == player.getPosition(),
+                    "ServerNewPlayerList entry " + player.getId());
+        }
+
+        reader = new MessageReader(MessageCodec.encodeRosterDelta(5, 43, MessageCodec.ROSTER_LEAVE, players.get(1)));
+        check(reader.readInt() == 43 && reader.readByte() == MessageCodec.ROSTER_LEAVE
+                && reader.readString().equals(players.get(1).getId()), "ServerRosterDelta");
+
+        reader = new MessageReader(MessageCodec.encodeGuessResult(5, MessageCodec.GUESS_CLOSE));
+        check(reader.readByte() == MessageCodec.GUESS_CLOSE && reader.remaining() == 0, "ServerGuessResult");
+    }
+
+    /**
+     * StrokeEncoder and StrokeDecoder
+     */
+
+    private void checkStrokes(Random random){
+        // a pair of Double.MAX_VALUE is a separator, as in encodePoints
+        int count = MessageCodec.MAX_BATCH_POINTS;
+        double[] coords = new double[count * 2];
+        double x = 400;
+        double y = 300;
+        for(int i = 0; i < count; i++){
+            if(random.nextInt(50) == 0){
+                coords[i * 2] = Double.MAX_VALUE;
+                coords[i * 2 + 1] = Double.MAX_VALUE;
+                continue;
+            }
+            // mostly small moves, some jumps far outside the canvas
+            int range = random.nextInt(20) == 0 ? 100000 : 16;
+            x += random.nextInt(2 * range + 1) - range;
+            y += random.nextInt(2 * range + 1) - range;
+            coords[i * 2] = x + random.nextDouble() - 0.5;
+            coords[i * 2 + 1] = y + random.nextDouble() - 0.5;
+        }
+        byte[] frame = MessageCodec.encodePoints(MessageCodec.CLI_NEW_POINTS, 9, coords, count);
+        check(MessageCodec.isPointsFrame(frame) && MessageCodec.pointCount(frame) == count, "point run count");
+
+        StrokeDecoder decoder = new StrokeDecoder().reset(frame);
+        int decoded = 0;
+        boolean isMatching = true;
+        while(decoder.next()){
+            double cx = coords[decoded * 2];
+            double cy = coords[decoded * 2 + 1];
+            if(cx == Double.MAX_VALUE && cy == Double.MAX_VALUE){
+                isMatching &= decoder.isSeparator();
+            }else{
+                isMatching &= !decoder.isSeparator() && decoder.x() == StrokeEncoder.quantizeX(cx)
+                        && decoder.y() == StrokeEncoder.quantizeY(cy);
+            }
+            decoded++;
+        }
+        check(decoded == count, "decoded " + decoded + " of " + count + " points");
+        check(isMatching, "decoded points are the encoded ones, quantized and clamped to the canvas");
+        check(rejects(() -> {
+            StrokeDecoder truncated = new StrokeDecoder().reset(Arrays.copyOf(frame, frame.length - 1));
+            while(truncated.next()) ;
+        }), "truncated point run");
+        check(rejects(() -> MessageCodec.encodePoints(MessageCodec.CLI_NEW_POINTS, 9, coords, count + 1)),
+                "point run over MAX_BATCH_POINTS");
+
+        // an encoder used again after reset writes the same run
+        StrokeEncoder encoder = new StrokeEncoder();
+        encoder.addPoint(1, 2);
+        encoder.reset();
+        encoder.addPoint(3, 4);
+        encoder.addSeparator();
+        encoder.addPoint(3, 4);
+        decoder.reset(encoder.toFrame(MessageCodec.SERVER_NEW_POINTS, 9));
+        check(decoder.next() && decoder.x() == 3 && decoder.y() == 4, "first point after reset");
+        check(decoder.next() && decoder.isSeparator(), "separator");
+        check(decoder.next() && decoder.x() == 3 && decoder.y() == 4, "absolute point after a separator");
+        check(!decoder.next(), "end of run");
+
+        // deltas this large would overflow the shifted zigzag if they were not clamped
+        encoder.reset();
+        encoder.addPoint(-1e12, 1e12);
+        encoder.addPoint(Integer.MAX_VALUE * 4.0, Double.NaN);
+        decoder.reset(encoder.toFrame(MessageCodec.SERVER_NEW_POINTS, 9));
+        check(decoder.next() && decoder.x() == 0 && decoder.y() == CanvasSpec.HEIGHT, "point clamped to the canvas");
+        check(decoder.next() && decoder.x() == CanvasSpec.WIDTH && decoder.y() == 0, "jump across the canvas");
+    }
+
+    private static boolean rejects(Runnable action){
+        try{
+            action.run();
+            return false;
+        }catch (IllegalArgumentException e){
+            return true;
+        }
+    }
+
+    public static void main(String[] args){
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        CodecCheck codecCheck = new CodecCheck();
+        codecCheck.checkPrimitives();
+        codecCheck.checkMessages();
+        codecCheck.checkStrokes(new Random(seed));
+        logger.info("{} checks, {} failed, seed {}", codecCheck.checks, codecCheck.failures, seed);
+        if(codecCheck.failures > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,274 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import java.util.Arrays;
+
+/**
+ * Fits a polyline of cursor samples with a chain of cubic Bezier segments that stay within a pixel error,
+ * after Schneider, "An Algorithm for Automatically Fitting Digitized Curves" (Graphics Gems, 1990),
+ * and turns such a chain back into points on the receiving side.
+ *
+ * A chain of k segments is 1 + 3k control points as x, y pairs: p0, c1, c2, p1, c1, c2, p2, ...
+ */
+public class CurveFitter {
+    // newton-raphson rounds before a segment is split
+    private static final int MAX_ITERATIONS = 4;
+    // spacing of the points rebuilt from a segment, in pixels
+    private static final double SAMPLE_SPACING = 2.0;
+
+    private final double maxError;
+
+    // the chain being built
+    private double[] out = new double[64];
+    private int outSize = 0;
+
+    public CurveFitter(double maxError){
+        if(maxError <= 0){
+            throw new IllegalArgumentException("invalid fitting error: " + maxError);
+        }
+        this.maxError = maxError;
+    }
+
+    public interface PointSink{
+        void point(double x, double y);
+    }
+
+    /**
+     * fit n points given as x, y pairs, returns the control points of the chain as x, y pairs
+     */
+    public double[] fit(double[] points, int n){
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        // repeated samples have no direction, drop them
+        int m = 0;
+        for(int i = 0; i < n; i++){
+            double x = points[i * 2];
+            double y = points[i * 2 + 1];
+            if(m > 0 && x == xs[m - 1] && y == ys[m - 1]) continue;
+            xs[m] = x;
+            ys[m] = y;
+            m++;
+        }
+
+        outSize = 0;
+        if(m == 0) return new double[0];
+        emit(xs[0], ys[0]);
+        if(m == 1) return Arrays.copyOf(out, outSize);
+
+        double[] tHat1 = leftTangent(xs, ys, 0);
+        double[] tHat2 = rightTangent(xs, ys, m - 1);
+        fitCubic(xs, ys, 0, m - 1, tHat1, tHat2);
+        return Arrays.copyOf(out, outSize);
+    }
+
+    /**
+     * rebuild points from a chain of control points (x, y pairs, 1 + 3k of them), the first point included
+     */
+    public static void sample(double[] ctrl, int ctrlNum, PointSink sink){
+        if(ctrlNum <= 0) return;
+        sink.point(ctrl[0], ctrl[1]);
+        for(int s = 0; s + 3 < ctrlNum; s += 3){
+            int o = s * 2;
+            double polygon = dist(ctrl[o], ctrl[o + 1], ctrl[o + 2], ctrl[o + 3])
+                    + dist(ctrl[o + 2], ctrl[o + 3], ctrl[o + 4], ctrl[o + 5])
+                    + dist(ctrl[o + 4], ctrl[o + 5], ctrl[o + 6], ctrl[o + 7]);
+            int steps = Math.max(1, (int) Math.ceil(polygon / SAMPLE_SPACING));
+            for(int i = 1; i <= steps; i++){
+                double t = (double) i / steps;
+                sink.point(bezier(ctrl, o, t, 0), bezier(ctrl, o, t, 1));
+            }
+        }
+    }
+
+    private void fitCubic(double[] xs, double[] ys, int first, int last, double[] tHat1, double[] tHat2){
+        int nPts = last - first + 1;
+        if(nPts == 2){
+            double d = dist(xs[first], ys[first], xs[last], ys[last]) / 3.0;
+            emit(xs[first] + tHat1[0] * d, ys[first] + tHat1[1] * d);
+            emit(xs[last] + tHat2[0] * d, ys[last] + tHat2[1] * d);
+            emit(xs[last], ys[last]);
+            return;
+        }
+
+        double[] u = chordLengthParameterize(xs, ys, first, last);
+        double[] curve = generateBezier(xs, ys, first, last, u, tHat1, tHat2);
+        int[] splitPoint = new int[1];
+        double error = computeMaxError(xs, ys, first, last, curve, u, splitPoint);
+        if(error < maxError * maxError){
+            emitCurve(curve);
+            return;
+        }
+
+        // close enough to try improving the parameterization
+        if(error < maxError * maxError * 4){
+            for(int i = 0; i < MAX_ITERATIONS; i++){
+                u = reparameterize(xs, ys, first, last, u, curve);
+                curve = generateBezier(xs, ys, first, last, u, tHat1, tHat2);
+                error = computeMaxError(xs, ys, first, last, curve, u, splitPoint);
+                if(error < maxError * maxError){
+                    emitCurve(curve);
+                    return;
+                }
+            }
+        }
+
+        // fitting failed, split at the worst point and fit both halves
+        int split = splitPoint[0];
+        double[] tHatCenter = centerTangent(xs, ys, split);
+        fitCubic(xs, ys, first, split, tHat1, tHatCenter);
+        tHatCenter[0] = -tHatCenter[0];
+        tHatCenter[1] = -tHatCenter[1];
+        fitCubic(xs, ys, split, last, tHatCenter, tHat2);
+    }
+
+    // least squares fit of the two inner control points along the end tangents
+    private static double[] generateBezier(double[] xs, double[] ys, int first, int last, double[] u,
+                                           double[] tHat1, double[] tHat2){
+        int nPts = last - first + 1;
+        double c00 = 0, c01 = 0, c11 = 0, x0 = 0, x1 = 0;
+        double fx = xs[first], fy = ys[first], lx = xs[last], ly = ys[last];
+        for(int i = 0; i < nPts; i++){
+            double t = u[i];
+            double b0 = b0(t), b1 = b1(t), b2 = b2(t), b3 = b3(t);
+            double a1x = tHat1[0] * b1, a1y = tHat1[1] * b1;
+            double a2x = tHat2[0] * b2, a2y = tHat2[1] * b2;
+            c00 += a1x * a1x + a1y * a1y;
+            c01 += a1x * a2x + a1y * a2y;
+            c11 += a2x * a2x + a2y * a2y;
+            double tmpX = xs[first + i] - (fx * (b0 + b1) + lx * (b2 + b3));
+            double tmpY = ys[first + i] - (fy * (b0 + b1) + ly * (b2 + b3));
+            x0 += a1x * tmpX + a1y * tmpY;
+            x1 += a2x * tmpX + a2y * tmpY;
+        }
+
+        double detC0C1 = c00 * c11 - c01 * c01;
+        double detC0X = c00 * x1 - c01 * x0;
+        double detXC1 = x0 * c11 - x1 * c01;
+        double alphaL = detC0C1 == 0 ? 0 : detXC1 / detC0C1;
+        double alphaR = detC0C1 == 0 ? 0 : detC0X / detC0C1;
+
+        // degenerate fit, fall back to the heuristic of a third of the chord
+        double segLength = dist(fx, fy, lx, ly);
+        double epsilon = 1.0e-6 * segLength;
+        if(alphaL < epsilon || alphaR < epsilon){
+            alphaL = segLength / 3.0;
+            alphaR = segLength / 3.0;
+        }
+        return new double[]{
+                fx, fy,
+                fx + tHat1[0] * alphaL, fy + tHat1[1] * alphaL,
+                lx + tHat2[0] * alphaR, ly + tHat2[1] * alphaR,
+                lx, ly
+        };
+    }
+
+    // squared distance of the worst sample, its index goes to splitPoint
+    private static double computeMaxError(double[] xs, double[] ys, int first, int last, double[] curve,
+                                          double[] u, int[] splitPoint){
+        double maxDist = 0;
+        splitPoint[0] = (last - first + 1) / 2 + first;
+        for(int i = first + 1; i < last; i++){
+            double t = u[i - first];
+            double dx = bezier(curve, 0, t, 0) - xs[i];
+            double dy = bezier(curve, 0, t, 1) - ys[i];
+            double d = dx * dx + dy * dy;
+            if(d >= maxDist){
+                maxDist = d;
+                splitPoint[0] = i;
+            }
+        }
+        return maxDist;
+    }
+
+    private static double[] reparameterize(double[] xs, double[] ys, int first, int last, double[] u, double[] curve){
+        double[] uPrime = new double[last - first + 1];
+        for(int i = first; i <= last; i++){
+            uPrime[i - first] = newtonRaphsonRootFind(curve, xs[i], ys[i], u[i - first]);
+        }
+        return uPrime;
+    }
+
+    private static double newtonRaphsonRootFind(double[] q, double px, double py, double u){
+        double qx = bezier(q, 0, u, 0), qy = bezier(q, 0, u, 1);
+        // first and second derivative of the curve at u
+        double q1x = 3 * (sq(1 - u) * (q[2] - q[0]) + 2 * (1 - u) * u * (q[4] - q[2]) + u * u * (q[6] - q[4]));
+        double q1y = 3 * (sq(1 - u) * (q[3] - q[1]) + 2 * (1 - u) * u * (q[5] - q[3]) + u * u * (q[7] - q[5]));
+        double q2x = 6 * ((1 - u) * (q[4] - 2 * q[2] + q[0]) + u * (q[6] - 2 * q[4] + q[2]));
+        double q2y = 6 * ((1 - u) * (q[5] - 2 * q[3] + q[1]) + u * (q[7] - 2 * q[5] + q[3]));
+        double numerator = (qx - px) * q1x + (qy - py) * q1y;
+        double denominator = q1x * q1x + q1y * q1y + (qx - px) * q2x + (qy - py) * q2y;
+        if(denominator == 0) return u;
+        double uPrime = u - numerator / denominator;
+        return Math.min(1, Math.max(0, uPrime));
+    }
+
+    private static double[] chordLengthParameterize(double[] xs, double[] ys, int first, int last){
+        double[] u = new double[last - first + 1];
+        for(int i = first + 1; i <= last; i++){
+            u[i - first] = u[i - first - 1] + dist(xs[i], ys[i], xs[i - 1], ys[i - 1]);
+        }
+        double total = u[last - first];
+        for(int i = first + 1; i <= last; i++){
+            u[i - first] = total == 0 ? 0 : u[i - first] / total;
+        }
+        return u;
+    }
+
+    private static double[] leftTangent(double[] xs, double[] ys, int end){
+        return normalize(xs[end + 1] - xs[end], ys[end + 1] - ys[end]);
+    }
+
+    private static double[] rightTangent(double[] xs, double[] ys, int end){
+        return normalize(xs[end - 1] - xs[end], ys[end - 1] - ys[end]);
+    }
+
+    private static double[] centerTangent(double[] xs, double[] ys, int center){
+        double[] t = normalize(xs[center - 1] - xs[center + 1], ys[center - 1] - ys[center + 1]);
+        // a cusp, use the incoming direction
+        if(t[0] == 0 && t[1] == 0){
+            t = normalize(xs[center - 1] - xs[center], ys[center - 1] - ys[center]);
+        }
+        return t;
+    }
+
+    private void emitCurve(double[] curve){
+        // the first point is already in the chain
+        emit(curve[2], curve[3]);
+        emit(curve[4], curve[5]);
+        emit(curve[6], curve[7]);
+    }
+
+    private void emit(double x, double y){
+        if(outSize + 2 > out.length){
+            out = Arrays.copyOf(out, out.length * 2);
+        }
+        out[outSize++] = x;
+        out[outSize++] = y;
+    }
+
+    // coordinate axis (0 = x, 1 = y) of the segment starting at ctrl[offset] at t
+    private static double bezier(double[] ctrl, int offset, double t, int axis){
+        double mt = 1 - t;
+        return ctrl[offset + axis] * mt * mt * mt
+                + ctrl[offset + 2 + axis] * 3 * mt * mt * t
+                + ctrl[offset + 4 + axis] * 3 * mt * t * t
+                + ctrl[offset + 6 + axis] * t * t * t;
+    }
+
+    private static double b0(double t){ double mt = 1 - t; return mt * mt * mt; }
+    private static double b1(double t){ double mt = 1 - t; return 3 * t * mt * mt; }
+    private static double b2(double t){ return 3 * t * t * (1 - t); }
+    private static double b3(double t){ return t * t * t; }
+
+    private static double[] normalize(double x, double y){
+        double len = Math.sqrt(x * x + y * y);
+        return len == 0 ? new double[]{0, 0} : new double[]{x / len, y / len};
+    }
+
+    private static double dist(double x0, double y0, double x1, double y1){
+        return Math.sqrt(sq(x1 - x0) + sq(y1 - y0));
+    }
+
+    private static double sq(double v){
+        return v * v;
+    }
+}
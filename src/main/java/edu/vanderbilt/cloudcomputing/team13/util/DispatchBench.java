@@ -0,0 +1,101 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+
+/**
+ * Cost of dispatching one message to its action, runnable without a benchmark harness. The binary path is the one
+ * both sides use: Dispatcher.actionOf on the frame, a reused MessageView wrapped around it, the action reading the
+ * body through the view. The text path is what it replaced: split the string at '@', look the name up in a HashMap,
+ * split the parameters at '%' and parse them. Each run reports nanoseconds and bytes allocated per message, the
+ * latter from the JVM's per-thread allocation counter.
+ *
+ *   DispatchBench [runs] [messagesPerRun]
+ */
+public class DispatchBench {
+    private static final Logger logger = LogManager.getLogger(DispatchBench.class.getName());
+
+    // what the actions read, so the reads are not optimised away
+    private static double sink = 0;
+
+    private static class readPoint extends AbstractAction{
+        @Override
+        public void run(MessageView para){
+            sink += para.pointX() + para.pointY();
+        }
+    }
+
+    private static class readReady extends AbstractAction{
+        @Override
+        public void run(MessageView para){
+            MessageReader reader = para.reader();
+            // the id is empty, only its length is read: decoding a string is not dispatch cost
+            sink += reader.readShort() + (reader.readBoolean() ? 1 : 0);
+        }
+    }
+
+    private interface TextAction{
+        void run(String[] para);
+    }
+
+    public static void main(String[] args){
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+
+        Dispatcher dispatcher = new Dispatcher()
+                .register(MessageCodec.SERVER_NEW_POINT, new readPoint())
+                .register(MessageCodec.SERVER_PLAYER_READY, new readReady());
+        byte[][] frames = new byte[64][];
+        String[] texts = new String[frames.length];
+        for(int i = 0; i < frames.length; i++){
+            if(i % 8 == 7){
+                frames[i] = MessageCodec.encodePlayerReady(MessageCodec.SERVER_PLAYER_READY, 1, "", true);
+                texts[i] = "ServerPlayerReady@10.0.0.1:p" + i;
+            }else{
+                frames[i] = MessageCodec.encodePoint(MessageCodec.SERVER_NEW_POINT, 1, 100 + i * 3.5, 200 - i);
+                texts[i] = "ServerNewPoint@" + (100 + i * 3.5) + "%" + (200 - i);
+            }
+        }
+        HashMap<String, TextAction> textActions = new HashMap<>();
+        textActions.put("ServerNewPoint", para -> sink += Double.parseDouble(para[0]) + Double.parseDouble(para[1]));
+        textActions.put("ServerPlayerReady", para -> sink += para[0].length());
+
+        MessageView view = new MessageView();
+        for(int run = 0; run < runs; run++){
+            long bytes = allocatedBytes();
+            long begin = System.nanoTime();
+            for(int i = 0; i < messages; i++){
+                byte[] frame = frames[i & 63];
+                dispatcher.actionOf(frame).call(view.wrap(frame));
+            }
+            long binaryNanos = System.nanoTime() - begin;
+            long binaryBytes = allocatedBytes() - bytes;
+
+            bytes = allocatedBytes();
+            begin = System.nanoTime();
+            for(int i = 0; i < messages; i++){
+                String[] parts = texts[i & 63].split("@");
+                textActions.get(parts[0]).run(parts[1].split("%"));
+            }
+            long textNanos = System.nanoTime() - begin;
+            long textBytes = allocatedBytes() - bytes;
+
+            logger.info("run {}: binary {} ns and {} bytes per message, text {} ns and {} bytes per message", run,
+                    String.format("%.1f", binaryNanos / (double) messages), String.format("%.2f", binaryBytes / (double) messages),
+                    String.format("%.1f", textNanos / (double) messages), String.format("%.1f", textBytes / (double) messages));
+        }
+        logger.debug("checksum {}", sink);
+    }
+
+    // -1 where the JVM does not count allocations per thread
+    private static long allocatedBytes(){
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if(threads instanceof com.sun.management.ThreadMXBean){
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,29 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+/**
+ * Finds the action of a frame with one array lookup on its opcode.
+ * Actions are registered once at startup and shared by all messages, see AbstractAction.
+ */
+public class Dispatcher {
+    // indexed by opcode, up to MessageCodec.MAX_OPCODE
+    private final AbstractAction[] actions = new AbstractAction[MessageCodec.MAX_OPCODE + 1];
+
+    public Dispatcher register(byte opcode, AbstractAction action){
+        int index = opcode & 0xff;
+        if(index > MessageCodec.MAX_OPCODE){
+            throw new IllegalArgumentException("opcode out of range: " + index);
+        }
+        if(actions[index] != null){
+            throw new IllegalStateException("opcode already registered: " + MessageCodec.opcodeName(opcode));
+        }
+        actions[index] = action;
+        return this;
+    }
+
+    // null for an invalid frame or an opcode nobody handles
+    public AbstractAction actionOf(byte[] frame){
+        if(!MessageCodec.isValid(frame)) return null;
+        int index = MessageCodec.opcode(frame) & 0xff;
+        return index > MessageCodec.MAX_OPCODE ? null : actions[index];
+    }
+}
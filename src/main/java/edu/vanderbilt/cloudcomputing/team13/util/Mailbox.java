@@ -0,0 +1,83 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectableChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A multi-producer queue for the thread that owns a zmq socket.
+ * ZMQ sockets must only be used by one thread, so other threads post work here instead.
+ * The owner registers {@link #channel()} in its ZMQ.Poller next to its sockets and wakes up as soon as
+ * something is offered, then calls {@link #clearSignal()} and polls until the queue is empty.
+ */
+public class Mailbox<T> {
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+    // only the producer that flips this to true writes a wakeup byte
+    private final AtomicBoolean isSignaled = new AtomicBoolean(false);
+    private final Pipe pipe;
+    private final ByteBuffer drainBuffer = ByteBuffer.allocate(64);
+
+    public Mailbox(){
+        try{
+            pipe = Pipe.open();
+            pipe.source().configureBlocking(false);
+        }catch (IOException e){
+            throw new UncheckedIOException("cannot open mailbox pipe", e);
+        }
+    }
+
+    public void offer(T item){
+        queue.offer(item);
+        wakeup();
+    }
+
+    public void wakeup(){
+        if(isSignaled.compareAndSet(false, true)){
+            try{
+                pipe.sink().write(ByteBuffer.wrap(new byte[1]));
+            }catch (IOException e){
+                throw new UncheckedIOException("cannot signal mailbox", e);
+            }
+        }
+    }
+
+    public T poll(){
+        return queue.poll();
+    }
+
+    public boolean isEmpty(){
+        return queue.isEmpty();
+    }
+
+    public SelectableChannel channel(){
+        return pipe.source();
+    }
+
+    // owner thread only: consume the wakeup bytes before draining the queue. The flag is cleared after the bytes:
+    // cleared first, the byte of an offer in between would be consumed with the flag still set, and the offers
+    // after it would not signal at all
+    public void clearSignal(){
+        try{
+            drainBuffer.clear();
+            while(pipe.source().read(drainBuffer) > 0){
+                drainBuffer.clear();
+            }
+        }catch (IOException e){
+            throw new UncheckedIOException("cannot drain mailbox", e);
+        }
+        isSignaled.set(false);
+    }
+
+    public void close(){
+        try{
+            pipe.sink().close();
+            pipe.source().close();
+        }catch (IOException e){
+            // nothing left to do with a broken pipe
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import java.util.Collection;
+
+/**
+ * Binary wire format shared by the game server and the game clients.
+ *
+ * Every frame starts with a six byte header: [version][room:int][opcode].
+ * The room id sits in front of the opcode so that a subscriber can filter a room by prefix,
+ * or one kind of message of a room by the whole header (see {@link #topic(int, byte)}).
+ * Point frames have a fixed size, the two coordinates follow the header as big-endian doubles.
+ * All other messages carry length-prefixed UTF-8 strings (unsigned short length), see {@link MessageWriter}.
+ */
+public class MessageCodec {
+    public static final byte VERSION = 2;
+
+    // requests from clients
+    public static final byte CLI_NEW_POINT = 0x01;
+    // only journaled by the server for a correct guess, a client cannot declare a winner
+    public static final byte CLI_NEW_WINNER = 0x02;
+    public static final byte CLI_NEW_PLAYER = 0x03;
+    public static final byte CLI_PLAYER_READY = 0x04;
+    public static final byte CLI_NEW_POINTS = 0x05;
+    public static final byte CLI_NEW_CURVES = 0x06;
+    public static final byte CLI_GUESS = 0x07;
+    public static final byte CLI_PLAYER_LEAVE = 0x08;
+    // asks for the whole player list of a room
+    public static final byte CLI_ROSTER = 0x09;
+    // messages published by the server
+    public static final byte SERVER_NEW_POINT = 0x11;
+    public static final byte SERVER_NEW_WINNER = 0x12;
+    public static final byte SERVER_NEW_PLAYER_LIST = 0x13;
+    public static final byte SERVER_PLAYER_READY = 0x14;
+    public static final byte SERVER_NEW_GAME = 0x15;
+    public static final byte SERVER_NEW_POINTS = 0x16;
+    public static final byte SERVER_NEW_CURVES = 0x17;
+    // the reply to CliNewPlayer, the drawing of the round so far
+    public static final byte SERVER_SNAPSHOT = 0x18;
+    // the reply to CliGuess
+    public static final byte SERVER_GUESS_RESULT = 0x19;
+    // a change of the player list, published instead of the whole list
+    public static final byte SERVER_ROSTER_DELTA = 0x1a;
+    // replies to requests
+    public static final byte REPLY_OK = 0x21;
+    public static final byte REPLY_ERROR = 0x22;
+    // journal records, never sent: the whole state of a room, see Room.checkpoint()
+    public static final byte JOURNAL_CHECKPOINT = 0x31;
+
+    // the largest opcode, handler tables can be indexed by opcode
+    public static final int MAX_OPCODE = 0x7f;
+
+    public static final int ROOM_OFFSET = 1;
+    public static final int OPCODE_OFFSET = 5;
+    public static final int HEADER_SIZE = 6;
+    public static final int POINT_FRAME_SIZE = HEADER_SIZE + 16;
+    public static final int MAX_BATCH_POINTS = 0xffff;
+
+    // results of a guess
+    public static final int GUESS_WRONG = 0;
+    public static final int GUESS_CLOSE = 1;
+    public static final int GUESS_CORRECT = 2;
+
+    // kinds of roster delta
+    public static final int ROSTER_JOIN = 1;
+    public static final int ROSTER_LEAVE = 2;
+
+    private MessageCodec(){
+
+    }
+
+    /**
+     * header lookups
+     */
+
+    public static boolean isValid(byte[] frame){
+        return frame != null && frame.length >= HEADER_SIZE && frame[0] == VERSION;
+    }
+
+    public static byte opcode(byte[] frame){
+        return frame[OPCODE_OFFSET];
+    }
+
+    public static int roomId(byte[] frame){
+        return getInt(frame, ROOM_OFFSET);
+    }
+
+    // the prefix every frame of a room starts with
+    public static byte[] roomPrefix(int roomId){
+        byte[] prefix = new byte[OPCODE_OFFSET];
+        prefix[0] = VERSION;
+        putInt(prefix, ROOM_OFFSET, roomId);
+        return prefix;
+    }
+
+    // the part after every published frame, the publish sequence of the frame's room
+    public static byte[] encodeSequence(int sequence){
+        byte[] part = new byte[4];
+        putInt(part, 0, sequence);
+        return part;
+    }
+
+    public static int decodeSequence(byte[] part){
+        if(part == null || part.length != 4){
+            throw new IllegalArgumentException("not a sequence part");
+        }
+        return getInt(part, 0);
+    }
+
+    // the prefix every frame of one kind in a room starts with, the whole header
+    public static byte[] topic(int roomId, byte opcode){
+        byte[] topic = new byte[HEADER_SIZE];
+        writeHeader(topic, roomId, opcode);
+        return topic;
+    }
+
+    public static String opcodeName(byte opcode){
+        switch (opcode){
+            case CLI_NEW_POINT: return "CliNewPoint";
+            case CLI_NEW_WINNER: return "CliNewWinner";
+            case CLI_NEW_PLAYER: return "CliNewPlayer";
+            case CLI_PLAYER_READY: return "CliPlayerReady";
+            case CLI_NEW_POINTS: return "CliNewPoints";
+            case CLI_NEW_CURVES: return "CliNewCurves";
+            case CLI_GUESS: return "CliGuess";
+            case CLI_PLAYER_LEAVE: return "CliPlayerLeave";
+            case CLI_ROSTER: return "CliRoster";
+            case SERVER_NEW_POINT: return "ServerNewPoint";
+            case SERVER_NEW_WINNER: return "ServerNewWinner";
+            case SERVER_NEW_PLAYER_LIST: return "ServerNewPlayerList";
+            case SERVER_PLAYER_READY: return "ServerPlayerReady";
+            case SERVER_NEW_GAME: return "ServerNewGame";
+            case SERVER_NEW_POINTS: return "ServerNewPoints";
+            case SERVER_NEW_CURVES: return "ServerNewCurves";
+            case SERVER_SNAPSHOT: return "ServerSnapshot";
+            case SERVER_GUESS_RESULT: return "ServerGuessResult";
+            case SERVER_ROSTER_DELTA: return "ServerRosterDelta";
+            case REPLY_OK: return "OK";
+            case REPLY_ERROR: return "ERROR";
+            case JOURNAL_CHECKPOINT: return "Checkpoint";
+            default: return "Unknown(" + opcode + ")";
+        }
+    }
+
+    /**
+     * point frames: [header][x:double][y:double]
+     */
+
+    public static byte[] encodePoint(byte opcode, int roomId, double x, double y){
+        byte[] frame = new byte[POINT_FRAME_SIZE];
+        writeHeader(frame, roomId, opcode);
+        putLong(frame, HEADER_SIZE, Double.doubleToLongBits(x));
+        putLong(frame, HEADER_SIZE + 8, Double.doubleToLongBits(y));
+        return frame;
+    }
+
+    public static boolean isPointFrame(byte[] frame){
+        return isValid(frame) && frame.length == POINT_FRAME_SIZE;
+    }
+
+    public static double pointX(byte[] frame){
+        return Double.longBitsToDouble(getLong(frame, HEADER_SIZE));
+    }
+
+    public static double pointY(byte[] frame){
+        return Double.longBitsToDouble(getLong(frame, HEADER_SIZE + 8));
+    }
+
+    /**
+     * point runs: [header][count:short] then the quantized delta stream of StrokeEncoder,
+     * separators travel inline so they keep their order within the run.
+     * CliNewCurves and ServerNewCurves use the same layout, their points are Bezier control points (see CurveFitter)
+     */
+
+    // coords holds x, y pairs, a pair of Double.MAX_VALUE is a stroke separator
+    public static byte[] encodePoints(byte opcode, int roomId, double[] coords, int count){
+        if(count < 0 || count > MAX_BATCH_POINTS){
+            throw new IllegalArgumentException("invalid point count: " + count);
+        }
+        StrokeEncoder encoder = new StrokeEncoder(count * 2 + 4);
+        for(int i = 0; i < count; i++){
+            double x = coords[i * 2];
+            double y = coords[i * 2 + 1];
+            if(x == Double.MAX_VALUE && y == Double.MAX_VALUE){
+                encoder.addSeparator();
+            }else{
+                encoder.addPoint(x, y);
+            }
+        }
+        return encoder.toFrame(opcode, roomId);
+    }
+
+    public static boolean isPointsFrame(byte[] frame){
+        return isValid(frame) && frame.length >= HEADER_SIZE + 2;
+    }
+
+    // points and separators in the run
+    public static int pointCount(byte[] frame){
+        return ((frame[HEADER_SIZE] & 0xff) << 8) | (frame[HEADER_SIZE + 1] & 0xff);
+    }
+
+    /**
+     * string messages
+     */
+
+    // CliNewWinner, ServerNewWinner: [id]
+    public static byte[] encodeWinner(byte opcode, int roomId, String playerId){
+        return new MessageWriter(opcode, roomId).writeString(playerId).toByteArray();
+    }
+
+    // CliPlayerLeave: [id]
+    public static byte[] encodePlayerLeave(int roomId, String playerId){
+        return new MessageWriter(CLI_PLAYER_LEAVE, roomId).writeString(playerId).toByteArray();
+    }
+
+    // CliNewPlayer: [id][ip][name]
+    public static byte[] encodeNewPlayer(int roomId, String playerId, String playerIp, String playerName){
+        return new MessageWriter(CLI_NEW_PLAYER, roomId)
+                .writeString(playerId)
+                .writeString(playerIp)
+                .writeString(playerName)
+                .toByteArray();
+    }
+
+    // CliPlayerReady, ServerPlayerReady: [id][ready:byte]
+    public static byte[] encodePlayerReady(byte opcode, int roomId, String playerId, boolean isReady){
+        return new MessageWriter(opcode, roomId)
+                .writeString(playerId)
+                .writeBoolean(isReady)
+                .toByteArray();
+    }
+
+    // CliRoster: header only
+    public static byte[] encodeRosterRequest(int roomId){
+        return new MessageWriter(CLI_ROSTER, roomId, HEADER_SIZE).toByteArray();
+    }
+
+    // ServerNewPlayerList: [version:int][count:short] then [id][ip][name][position:short] per player
+    public static byte[] encodePlayerList(int roomId, int version, Collection<Player> players){
+        MessageWriter writer = new MessageWriter(SERVER_NEW_PLAYER_LIST, roomId);
+        writer.writeInt(version);
+        writer.writeShort(players.size());
+        for(Player player : players){
+            writer.writeString(player.getId())
+                    .writeString(player.getIp())
+                    .writeString(player.getName())
+                    .writeShort(player.getPosition());
+        }
+        return writer.toByteArray();
+    }
+
+    // ServerRosterDelta: [version:int][kind:byte][id][ip][name][position:short], the list after this change has version
+    public static byte[] encodeRosterDelta(int roomId, int version, int kind, Player player){
+        return new MessageWriter(SERVER_ROSTER_DELTA, roomId)
+                .writeInt(version)
+                .writeByte(kind)
+                .writeString(player.getId())
+                .writeString(player.getIp())
+                .writeString(player.getName())
+                .writeShort(player.getPosition())
+                .toByteArray();
+    }
+
+    // ServerNewGame: [drawerId][word][count:short] then [synonym] per synonym, older journals end after the word
+    public static byte[] encodeNewGame(int roomId, String drawerId, String word, Collection<String> synonyms){
+        MessageWriter writer = new MessageWriter(SERVER_NEW_GAME, roomId)
+                .writeString(drawerId)
+                .writeString(word)
+                .writeShort(synonyms.size());
+        for(String synonym : synonyms){
+            writer.writeString(synonym);
+        }
+        return writer.toByteArray();
+    }
+
+    // CliGuess: [id][text]
+    public static byte[] encodeGuess(int roomId, String playerId, String text){
+        return new MessageWriter(CLI_GUESS, roomId)
+                .writeString(playerId)
+                .writeString(text)
+                .toByteArray();
+    }
+
+    // ServerGuessResult: [result:byte], GUESS_WRONG, GUESS_CLOSE or GUESS_CORRECT
+    public static byte[] encodeGuessResult(int roomId, int result){
+        return new MessageWriter(SERVER_GUESS_RESULT, roomId, HEADER_SIZE + 1).writeByte(result).toByteArray();
+    }
+
+    // ServerSnapshot: [ink sequence:int][width:short][height:short][keyframe length:int][keyframe] then the tail as a
+    // point run, the keyframe is a deflated StrokeRaster and empty while nothing has been compacted. The snapshot
+    // holds the ink frames of the room up to the ink sequence, see Publisher
+    public static byte[] encodeSnapshot(int roomId, int inkSequence, int width, int height, byte[] keyframe,
+                                        StrokeEncoder tail){
+        int keyframeLength = keyframe == null ? 0 : keyframe.length;
+        MessageWriter writer = new MessageWriter(SERVER_SNAPSHOT, roomId, 20 + keyframeLength + tail.size())
+                .writeInt(inkSequence)
+                .writeShort(width)
+                .writeShort(height)
+                .writeInt(keyframeLength);
+        if(keyframe != null) writer.writeBytes(keyframe, 0, keyframeLength);
+        tail.writeTo(writer);
+        return writer.toByteArray();
+    }
+
+    // OK, ERROR: header only, replies are routed by correlation id and carry no room
+    public static byte[] encodeReply(byte opcode){
+        byte[] frame = new byte[HEADER_SIZE];
+        writeHeader(frame, 0, opcode);
+        return frame;
+    }
+
+    /**
+     * big-endian primitives
+     */
+
+    static void writeHeader(byte[] buf, int roomId, byte opcode){
+        buf[0] = VERSION;
+        putInt(buf, ROOM_OFFSET, roomId);
+        buf[OPCODE_OFFSET] = opcode;
+    }
+
+    static void putInt(byte[] buf, int off, int v){
+        buf[off] = (byte) (v >>> 24);
+        buf[off + 1] = (byte) (v >>> 16);
+        buf[off + 2] = (byte) (v >>> 8);
+        buf[off + 3] = (byte) v;
+    }
+
+    static int getInt(byte[] buf, int off){
+        return ((buf[off] & 0xff) << 24) | ((buf[off + 1] & 0xff) << 16)
+                | ((buf[off + 2] & 0xff) << 8) | (buf[off + 3] & 0xff);
+    }
+
+    static void putLong(byte[] buf, int off, long v){
+        for(int i = 7; i >= 0; i--){
+            buf[off + i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+
+    static long getLong(byte[] buf, int off){
+        long v = 0;
+        for(int i = 0; i < 8; i++){
+            v = (v << 8) | (buf[off + i] & 0xff);
+        }
+        return v;
+    }
+}
@@ -0,0 +1,107 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the body of one binary frame in place, positioned right after the header.
+ * A truncated or malformed frame raises an IllegalArgumentException.
+ */
+public class MessageReader {
+    private byte[] buf;
+    private int start;
+    private int limit;
+    private int pos;
+
+    public MessageReader(byte[] frame){
+        this(frame, 0, frame.length);
+    }
+
+    public MessageReader(byte[] frame, int offset, int length){
+        reset(frame, offset, length);
+    }
+
+    // a reader without a frame, for MessageView to reset onto the frames it views
+    MessageReader(){
+    }
+
+    // read another frame from right after its header
+    MessageReader reset(byte[] frame, int offset, int length){
+        if(length < MessageCodec.HEADER_SIZE || frame[offset] != MessageCodec.VERSION){
+            throw new IllegalArgumentException("not a valid frame");
+        }
+        this.buf = frame;
+        this.start = offset;
+        this.pos = offset + MessageCodec.HEADER_SIZE;
+        this.limit = offset + length;
+        return this;
+    }
+
+    public byte opcode(){
+        return buf[start + MessageCodec.OPCODE_OFFSET];
+    }
+
+    public int roomId(){
+        return MessageCodec.getInt(buf, start + MessageCodec.ROOM_OFFSET);
+    }
+
+    public int readByte(){
+        require(1);
+        return buf[pos++];
+    }
+
+    public boolean readBoolean(){
+        return readByte() != 0;
+    }
+
+    public int readShort(){
+        require(2);
+        int v = ((buf[pos] & 0xff) << 8) | (buf[pos + 1] & 0xff);
+        pos += 2;
+        return v;
+    }
+
+    public int readInt(){
+        require(4);
+        int v = MessageCodec.getInt(buf, pos);
+        pos += 4;
+        return v;
+    }
+
+    public double readDouble(){
+        require(8);
+        double v = Double.longBitsToDouble(MessageCodec.getLong(buf, pos));
+        pos += 8;
+        return v;
+    }
+
+    public String readString(){
+        int len = readShort();
+        require(len);
+        String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+        pos += len;
+        return s;
+    }
+
+    public byte[] readBytes(int len){
+        require(len);
+        byte[] bytes = new byte[len];
+        System.arraycopy(buf, pos, bytes, 0, len);
+        pos += len;
+        return bytes;
+    }
+
+    // offset of the next byte in the frame
+    public int position(){
+        return pos;
+    }
+
+    public int remaining(){
+        return limit - pos;
+    }
+
+    private void require(int n){
+        if(pos + n > limit){
+            throw new IllegalArgumentException("truncated frame, need " + n + " more bytes at " + pos);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+/**
+ * A read-only view of one frame, what actions get instead of the frame itself (see AbstractAction). Nothing writes
+ * the frame through a view, so the frame can be journaled or published while actions read it. A view is a flyweight:
+ * its owner points it at the next frame once the action returned, an action that needs the frame later keeps
+ * toByteArray(). The reader is part of the view, so reading a message allocates nothing but the strings read.
+ */
+public final class MessageView {
+    private byte[] frame;
+    private final MessageReader reader = new MessageReader();
+
+    public MessageView(){
+    }
+
+    public MessageView(byte[] frame){
+        this.frame = frame;
+    }
+
+    // the owner of the view only: view this frame from now on, null views nothing
+    public MessageView wrap(byte[] frame){
+        this.frame = frame;
+        return this;
+    }
+
+    public boolean isValid(){
+        return MessageCodec.isValid(frame);
+    }
+
+    public byte opcode(){
+        return MessageCodec.opcode(frame);
+    }
+
+    public int roomId(){
+        return MessageCodec.roomId(frame);
+    }
+
+    public int length(){
+        return frame.length;
+    }
+
+    /**
+     * point lookups, see MessageCodec
+     */
+
+    public boolean isPointFrame(){
+        return MessageCodec.isPointFrame(frame);
+    }
+
+    public boolean isPointsFrame(){
+        return MessageCodec.isPointsFrame(frame);
+    }
+
+    public double pointX(){
+        return MessageCodec.pointX(frame);
+    }
+
+    public double pointY(){
+        return MessageCodec.pointY(frame);
+    }
+
+    public int pointCount(){
+        return MessageCodec.pointCount(frame);
+    }
+
+    // the reader of this view, positioned at the start of the body on every call
+    public MessageReader reader(){
+        return reader.reset(frame, 0, frame.length);
+    }
+
+    // a copy of the frame, to keep after the action returned
+    public byte[] toByteArray(){
+        return frame.clone();
+    }
+
+    // a copy of the frame with another opcode, e.g. a CliNewPoint published as a ServerNewPoint
+    public byte[] copyAs(byte opcode){
+        byte[] copy = frame.clone();
+        copy[MessageCodec.OPCODE_OFFSET] = opcode;
+        return copy;
+    }
+
+    // for the decoders of this package, which read the frame in place
+    byte[] frame(){
+        return frame;
+    }
+}
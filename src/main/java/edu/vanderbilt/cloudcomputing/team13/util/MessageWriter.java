@@ -0,0 +1,87 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Builds one binary frame, the header is written on construction.
+ */
+public class MessageWriter {
+    private byte[] buf;
+    private int pos = 0;
+
+    public MessageWriter(byte opcode, int roomId){
+        this(opcode, roomId, 64);
+    }
+
+    public MessageWriter(byte opcode, int roomId, int initialCapacity){
+        buf = new byte[Math.max(initialCapacity, MessageCodec.HEADER_SIZE)];
+        MessageCodec.writeHeader(buf, roomId, opcode);
+        pos = MessageCodec.HEADER_SIZE;
+    }
+
+    public MessageWriter writeByte(int v){
+        ensure(1);
+        buf[pos++] = (byte) v;
+        return this;
+    }
+
+    public MessageWriter writeBoolean(boolean v){
+        return writeByte(v ? 1 : 0);
+    }
+
+    public MessageWriter writeShort(int v){
+        if(v < 0 || v > 0xffff){
+            throw new IllegalArgumentException("value does not fit in an unsigned short: " + v);
+        }
+        ensure(2);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+        return this;
+    }
+
+    public MessageWriter writeInt(int v){
+        ensure(4);
+        MessageCodec.putInt(buf, pos, v);
+        pos += 4;
+        return this;
+    }
+
+    public MessageWriter writeDouble(double v){
+        ensure(8);
+        MessageCodec.putLong(buf, pos, Double.doubleToLongBits(v));
+        pos += 8;
+        return this;
+    }
+
+    public MessageWriter writeString(String s){
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeShort(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+        return this;
+    }
+
+    // raw bytes, the reader has to know their length
+    public MessageWriter writeBytes(byte[] bytes, int offset, int length){
+        ensure(length);
+        System.arraycopy(bytes, offset, buf, pos, length);
+        pos += length;
+        return this;
+    }
+
+    public int size(){
+        return pos;
+    }
+
+    public byte[] toByteArray(){
+        return pos == buf.length ? buf : Arrays.copyOf(buf, pos);
+    }
+
+    private void ensure(int extra){
+        if(pos + extra > buf.length){
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+        }
+    }
+}
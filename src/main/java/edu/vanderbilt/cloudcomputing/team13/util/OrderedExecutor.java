@@ -0,0 +1,82 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks on a shared executor while keeping submission order per stream key.
+ * Tasks with the same key run one at a time in the order they were submitted,
+ * tasks with different keys run in parallel. A stream's queue is dropped once it drains.
+ */
+public class OrderedExecutor implements Executor {
+    private static final Logger logger = LogManager.getLogger(OrderedExecutor.class.getName());
+
+    private final Executor executor;
+    private final ConcurrentHashMap<Object, SerialQueue> queues = new ConcurrentHashMap<>();
+
+    public OrderedExecutor(Executor executor){
+        this.executor = executor;
+    }
+
+    // tasks without a stream key keep no order
+    @Override
+    public void execute(Runnable task){
+        executor.execute(task);
+    }
+
+    public void execute(Object streamKey, Runnable task){
+        while(true){
+            SerialQueue queue = queues.computeIfAbsent(streamKey, SerialQueue::new);
+            boolean isIdle;
+            synchronized (queue){
+                // lost the race against a queue that just drained, take a fresh one
+                if(queue.isRetired) continue;
+                queue.tasks.add(task);
+                isIdle = !queue.isRunning;
+                queue.isRunning = true;
+            }
+            if(isIdle) executor.execute(queue);
+            return;
+        }
+    }
+
+    public int getStreamCount(){
+        return queues.size();
+    }
+
+    private class SerialQueue implements Runnable{
+        private final Object streamKey;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean isRunning = false;
+        private boolean isRetired = false;
+
+        SerialQueue(Object streamKey){
+            this.streamKey = streamKey;
+        }
+
+        @Override
+        public void run(){
+            while(true){
+                Runnable task;
+                synchronized (this){
+                    task = tasks.poll();
+                    if(task == null){
+                        isRunning = false;
+                        isRetired = true;
+                        queues.remove(streamKey, this);
+                        return;
+                    }
+                }
+                try{
+                    task.run();
+                }catch (RuntimeException e){
+                    logger.error("task of stream {} failed", streamKey, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The players of one game by slot. A player's slot is its position on the board, a slot is claimed from a bitmap of
+ * occupied slots when the player joins and given back when it leaves, so positions never collide and nothing is
+ * renumbered. The number of ready players is counted as it changes: whether everybody is ready, and picking a
+ * drawer at random or in turn, take constant time however the players came and went.
+ *
+ * Ids and slots are claimed and released atomically, a player is only visible in its slot once it is written. Ready
+ * states are changed by one thread at a time, the room's event loop on the server and the player stream on a client;
+ * any thread may read, the board renders from the slots directly.
+ */
+public class PlayerRegistry {
+    public static final int MAX_CAPACITY = 64;
+
+    private final int capacity;
+    private final AtomicReferenceArray<Player> slots;
+    // bit i is set while slot i is taken by an add, before its player is written
+    private final AtomicLong claimed = new AtomicLong(0);
+    // bit i is set once slot i holds its player and cleared before it is emptied, readers only look at these
+    private final AtomicLong occupied = new AtomicLong(0);
+    private final AtomicInteger readyCount = new AtomicInteger(0);
+    // <id, player>, the player knows its slot
+    private final ConcurrentHashMap<String, Player> byId = new ConcurrentHashMap<>();
+
+    public PlayerRegistry(int capacity){
+        if(capacity <= 0 || capacity > MAX_CAPACITY){
+            throw new IllegalArgumentException("invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * add the player to the lowest free slot, returns the slot or -1 if there is none;
+     * a player already in the game keeps its slot
+     */
+    public int add(Player player){
+        // the id is reserved first, two adds of one player cannot both claim a slot
+        player.setPosition(-1);
+        Player known = byId.putIfAbsent(player.getId(), player);
+        if(known != null) return known.getPosition();
+        long full = capacity == 64 ? -1L : (1L << capacity) - 1;
+        while(true){
+            long bits = claimed.get();
+            long free = ~bits & full;
+            if(free == 0){
+                byId.remove(player.getId(), player);
+                return -1;
+            }
+            int slot = Long.numberOfTrailingZeros(free);
+            if(claimed.compareAndSet(bits, bits | (1L << slot))){
+                place(player, slot);
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * add the player to the slot another registry gave it, the server's; returns false if that slot is taken
+     */
+    public boolean add(Player player, int slot){
+        if(slot < 0 || slot >= capacity) return false;
+        player.setPosition(slot);
+        if(byId.putIfAbsent(player.getId(), player) != null) return false;
+        while(true){
+            long bits = claimed.get();
+            if((bits & (1L << slot)) != 0){
+                byId.remove(player.getId(), player);
+                return false;
+            }
+            if(claimed.compareAndSet(bits, bits | (1L << slot))){
+                place(player, slot);
+                return true;
+            }
+        }
+    }
+
+    // null if there is no such player; removing a player while it is still being added is up to the caller to avoid
+    public Player remove(String playerId){
+        Player player = byId.remove(playerId);
+        if(player == null) return null;
+        int slot = player.getPosition();
+        clear(occupied, slot);
+        slots.set(slot, null);
+        if(player.isReady()) readyCount.decrementAndGet();
+        // only now the slot can be claimed again, the next player is not overwritten with null
+        clear(claimed, slot);
+        return player;
+    }
+
+    // returns false if there is no such player
+    public boolean setReady(String playerId, boolean isReady){
+        Player player = byId.get(playerId);
+        if(player == null) return false;
+        if(player.isReady() != isReady){
+            player.setReady(isReady);
+            readyCount.addAndGet(isReady ? 1 : -1);
+        }
+        return true;
+    }
+
+    public void clearReady(){
+        for(int slot = 0; slot < capacity; slot++){
+            Player player = slots.get(slot);
+            if(player != null) player.setReady(false);
+        }
+        readyCount.set(0);
+    }
+
+    /**
+     * drawer picks, both null without players
+     */
+
+    // any player, each as likely as the others
+    public Player pickRandom(){
+        while(true){
+            long bits = occupied.get();
+            int count = Long.bitCount(bits);
+            if(count == 0) return null;
+            // drop the lowest set bits until the picked one is the lowest
+            for(int skip = ThreadLocalRandom.current().nextInt(count); skip > 0; skip--){
+                bits &= bits - 1;
+            }
+            Player player = slots.get(Long.numberOfTrailingZeros(bits));
+            // null if it left since the bits were read
+            if(player != null) return player;
+        }
+    }
+
+    // the player in the next occupied slot after this one, wrapping around; -1 starts from the first slot
+    public Player pickAfter(int slot){
+        while(true){
+            long bits = occupied.get();
+            if(bits == 0) return null;
+            long after = slot + 1 >= 64 ? 0 : bits & (-1L << (slot + 1));
+            Player player = slots.get(Long.numberOfTrailingZeros(after != 0 ? after : bits));
+            if(player != null) return player;
+        }
+    }
+
+    /**
+     * player lookups
+     */
+
+    public int getCapacity(){
+        return capacity;
+    }
+
+    public int size(){
+        return Long.bitCount(occupied.get());
+    }
+
+    public int getReadyCount(){
+        return readyCount.get();
+    }
+
+    public boolean isAllReady(){
+        int size = size();
+        return size > 0 && readyCount.get() == size;
+    }
+
+    public boolean contains(String playerId){
+        return byId.containsKey(playerId);
+    }
+
+    public Player get(String playerId){
+        return playerId == null ? null : byId.get(playerId);
+    }
+
+    // null for a free slot
+    public Player get(int slot){
+        return slots.get(slot);
+    }
+
+    // the players in slot order
+    public List<Player> list(){
+        List<Player> players = new ArrayList<>(capacity);
+        for(int slot = 0; slot < capacity; slot++){
+            Player player = slots.get(slot);
+            if(player != null) players.add(player);
+        }
+        return players;
+    }
+
+    // the slot is written before its bit is published, a reader seeing the bit finds the player
+    private void place(Player player, int slot){
+        player.setPosition(slot);
+        slots.set(slot, player);
+        if(player.isReady()) readyCount.incrementAndGet();
+        set(occupied, slot);
+    }
+
+    private static void set(AtomicLong bitmap, int slot){
+        long bits;
+        do{
+            bits = bitmap.get();
+        }while(!bitmap.compareAndSet(bits, bits | (1L << slot)));
+    }
+
+    private static void clear(AtomicLong bitmap, int slot){
+        long bits;
+        do{
+            bits = bitmap.get();
+        }while(!bitmap.compareAndSet(bits, bits & ~(1L << slot)));
+    }
+}
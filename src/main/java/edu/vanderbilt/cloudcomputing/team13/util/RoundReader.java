@@ -0,0 +1,262 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for the recordings written by {@link RoundRecorder}. Only the index and one chunk are held
+ * in memory, events are walked in place like with StrokeDecoder:
+ *
+ *   StrokeRaster keyframe = reader.seek(millis);
+ *   while(reader.next()){
+ *       reader.time(), then reader.isSeparator() or reader.x(), reader.y()
+ *   }
+ *
+ * seek() returns the keyframe to start from (null for a blank canvas), the events that follow draw the rest,
+ * starting somewhat before the requested time. A malformed recording raises an IllegalArgumentException.
+ */
+public class RoundReader implements Closeable {
+    private final RandomAccessFile file;
+
+    // header
+    private final int roomId;
+    private final long startMillis;
+    private final String drawerId;
+    private final String word;
+    private final int width;
+    private final int height;
+
+    // index
+    private boolean isComplete;
+    private int endTime = 0;
+    private int chunkCount = 0;
+    private int[] chunkTimes = new int[64];
+    private long[] chunkOffsets = new long[64];
+    private boolean[] chunkKeyframes = new boolean[64];
+
+    // the chunk being read
+    private byte[] chunk = new byte[4096];
+    private int nextChunk = 0;
+    private boolean isChunkLoaded = false;
+    private int timesPos;
+    private int timesLimit;
+    private final StrokeDecoder decoder = new StrokeDecoder();
+    private int time = 0;
+
+    public RoundReader(File path) throws IOException{
+        file = new RandomAccessFile(path, "r");
+        try{
+            if(file.readInt() != RoundRecorder.MAGIC){
+                throw new IllegalArgumentException("not a round recording: " + path);
+            }
+            int version = file.readByte();
+            if(version != RoundRecorder.VERSION){
+                throw new IllegalArgumentException("unsupported recording version: " + version);
+            }
+            roomId = file.readInt();
+            startMillis = file.readLong();
+            drawerId = readString();
+            word = readString();
+            width = file.readUnsignedShort();
+            height = file.readUnsignedShort();
+            if(!readIndex()){
+                scanChunks(file.getFilePointer());
+            }
+        }catch (IOException | RuntimeException e){
+            file.close();
+            throw e;
+        }
+    }
+
+    // position at the last keyframe before millis, returns it or null if the events start from a blank canvas
+    public StrokeRaster seek(int millis) throws IOException{
+        isChunkLoaded = false;
+        nextChunk = 0;
+        if(chunkCount == 0) return null;
+        int c = Arrays.binarySearch(chunkTimes, 0, chunkCount, millis);
+        if(c < 0) c = Math.max(0, -c - 2);
+        // chunks may share a time, take the last of them
+        while(c + 1 < chunkCount && chunkTimes[c + 1] <= millis) c++;
+        while(c > 0 && !chunkKeyframes[c]) c--;
+        int keyframeLength = loadChunk(c);
+        if(keyframeLength == 0) return null;
+        return StrokeRaster.decompress(Arrays.copyOfRange(chunk, 8, 8 + keyframeLength), width, height);
+    }
+
+    public boolean next() throws IOException{
+        while(!isChunkLoaded || !decoder.next()){
+            if(nextChunk >= chunkCount) return false;
+            // keyframes on the way are already drawn by the events before them
+            loadChunk(nextChunk);
+        }
+        time += readTimeDelta();
+        return true;
+    }
+
+    public int time(){
+        return time;
+    }
+
+    public boolean isSeparator(){
+        return decoder.isSeparator();
+    }
+
+    public int x(){
+        return decoder.x();
+    }
+
+    public int y(){
+        return decoder.y();
+    }
+
+    @Override
+    public void close() throws IOException{
+        file.close();
+    }
+
+    /**
+     * recording lookups
+     */
+
+    public int getRoomId(){
+        return roomId;
+    }
+
+    public long getStartMillis(){
+        return startMillis;
+    }
+
+    public String getDrawerId(){
+        return drawerId;
+    }
+
+    public String getWord(){
+        return word;
+    }
+
+    public int getWidth(){
+        return width;
+    }
+
+    public int getHeight(){
+        return height;
+    }
+
+    // false for a recording cut short, its duration is then where the last chunk starts
+    public boolean isComplete(){
+        return isComplete;
+    }
+
+    public int getDuration(){
+        return endTime;
+    }
+
+    public int getChunkCount(){
+        return chunkCount;
+    }
+
+    // reads chunk c into the buffer and starts decoding it, returns the length of its keyframe
+    private int loadChunk(int c) throws IOException{
+        file.seek(chunkOffsets[c]);
+        int length = file.readInt();
+        if(length < 14 || chunkOffsets[c] + 4 + length > file.length()){
+            throw new IllegalArgumentException("bad chunk length " + length + " at " + chunkOffsets[c]);
+        }
+        if(chunk.length < length){
+            chunk = new byte[Integer.highestOneBit(length) * 2];
+        }
+        file.readFully(chunk, 0, length);
+        time = MessageCodec.getInt(chunk, 0);
+        int keyframeLength = MessageCodec.getInt(chunk, 4);
+        if(keyframeLength < 0 || 12 + keyframeLength > length){
+            throw new IllegalArgumentException("bad keyframe length in chunk " + c);
+        }
+        int timesLength = MessageCodec.getInt(chunk, 8 + keyframeLength);
+        timesPos = 12 + keyframeLength;
+        timesLimit = timesPos + timesLength;
+        if(timesLength < 0 || timesLimit > length){
+            throw new IllegalArgumentException("bad time length in chunk " + c);
+        }
+        decoder.reset(chunk, timesLimit, length);
+        isChunkLoaded = true;
+        nextChunk = c + 1;
+        return keyframeLength;
+    }
+
+    private int readTimeDelta(){
+        int v = 0;
+        for(int shift = 0; shift < 35; shift += 7){
+            if(timesPos >= timesLimit){
+                throw new IllegalArgumentException("truncated event times");
+            }
+            byte b = chunk[timesPos++];
+            v |= (b & 0x7f) << shift;
+            if(b >= 0) return v;
+        }
+        throw new IllegalArgumentException("malformed varint in event times");
+    }
+
+    // the index at the end of a complete recording, returns false if there is none
+    private boolean readIndex() throws IOException{
+        long headerEnd = file.getFilePointer();
+        long length = file.length();
+        if(length < headerEnd + RoundRecorder.TRAILER_SIZE) return false;
+        file.seek(length - RoundRecorder.TRAILER_SIZE);
+        int count = file.readInt();
+        int end = file.readInt();
+        long indexOffset = file.readLong();
+        if(file.readInt() != RoundRecorder.MAGIC || count < 0 || indexOffset < headerEnd
+                || indexOffset + (long) count * RoundRecorder.INDEX_ENTRY_SIZE + RoundRecorder.TRAILER_SIZE != length){
+            file.seek(headerEnd);
+            return false;
+        }
+        byte[] index = new byte[count * RoundRecorder.INDEX_ENTRY_SIZE];
+        file.seek(indexOffset);
+        file.readFully(index);
+        for(int i = 0; i < count; i++){
+            int entry = i * RoundRecorder.INDEX_ENTRY_SIZE;
+            addChunk(MessageCodec.getInt(index, entry), MessageCodec.getLong(index, entry + 4), index[entry + 12] != 0);
+        }
+        endTime = end;
+        isComplete = true;
+        return true;
+    }
+
+    // no index, find the chunks by their lengths and stop at the first one that was not written completely
+    private void scanChunks(long offset) throws IOException{
+        long length = file.length();
+        while(offset + 16 <= length){
+            file.seek(offset);
+            int chunkLength = file.readInt();
+            if(chunkLength < 14 || offset + 4 + chunkLength > length) break;
+            int chunkTime = file.readInt();
+            int keyframeLength = file.readInt();
+            addChunk(chunkTime, offset, keyframeLength > 0);
+            endTime = chunkTime;
+            offset += 4 + chunkLength;
+        }
+        isComplete = false;
+    }
+
+    private void addChunk(int chunkTime, long offset, boolean hasKeyframe){
+        if(chunkCount == chunkTimes.length){
+            chunkTimes = Arrays.copyOf(chunkTimes, chunkCount * 2);
+            chunkOffsets = Arrays.copyOf(chunkOffsets, chunkCount * 2);
+            chunkKeyframes = Arrays.copyOf(chunkKeyframes, chunkCount * 2);
+        }
+        chunkTimes[chunkCount] = chunkTime;
+        chunkOffsets[chunkCount] = offset;
+        chunkKeyframes[chunkCount] = hasKeyframe;
+        chunkCount++;
+    }
+
+    private String readString() throws IOException{
+        byte[] bytes = new byte[file.readUnsignedShort()];
+        file.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
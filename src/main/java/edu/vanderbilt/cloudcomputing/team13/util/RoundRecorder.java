@@ -0,0 +1,243 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes the drawing of one round to a file, every point and separator with the time it was drawn, read back
+ * by {@link RoundReader}.
+ *
+ * The file is a header, a sequence of chunks and an index:
+ *
+ *   header  [magic:int][version:byte][roomId:int][startMillis:long][drawerId][word][width:short][height:short]
+ *   chunk   [length:int][time:int][keyframeLength:int][keyframe][timesLength:int][times][count:short][point run]
+ *   index   [time:int][offset:long][hasKeyframe:byte] per chunk
+ *   trailer [chunkCount:int][endTime:int][indexOffset:long][magic:int]
+ *
+ * Times are milliseconds since the start of the round. A chunk holds up to CHUNK_EVENTS events or CHUNK_MILLIS of
+ * drawing, its events are a point run (see StrokeEncoder) and one varint time delta per event. Every
+ * KEYFRAME_EVENTS events a chunk starts with the deflated raster of everything drawn before it (see StrokeRaster),
+ * so a reader seeks by decoding at most that many events instead of the whole round. A stroke still being drawn at
+ * a keyframe goes on from its last point, which is repeated as the first event of the chunk.
+ *
+ * The index lets a reader find the chunks without reading them; a recording cut short by a crash has no index and
+ * is found by walking the chunk lengths instead. Thread safe, points may come from any thread; writes happen under
+ * a ReentrantLock rather than a monitor, so a virtual thread blocked on the file does not pin its carrier.
+ */
+public class RoundRecorder implements Closeable {
+    public static final int MAGIC = 0x44475231;
+    public static final int VERSION = 1;
+    public static final int CHUNK_EVENTS = 256;
+    public static final int CHUNK_MILLIS = 1000;
+    public static final int KEYFRAME_EVENTS = 2048;
+    public static final int INDEX_ENTRY_SIZE = 13;
+    public static final int TRAILER_SIZE = 20;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final DataOutputStream out;
+    private final long startMillis;
+    // event times come from the monotonic clock
+    private final long startNanos;
+    private long offset = 0;
+    private boolean isClosed = false;
+
+    // everything written so far, source of the keyframes
+    private final StrokeRaster raster;
+    private boolean isStrokeOpen = false;
+    private int lastX;
+    private int lastY;
+
+    // the chunk being built
+    private final StrokeEncoder points = new StrokeEncoder(1024);
+    private byte[] times = new byte[512];
+    private int timesSize = 0;
+    private int chunkTime = 0;
+    private int prevTime = 0;
+    private int eventsSinceKeyframe = 0;
+    private byte[] keyframe = null;
+
+    // index entries, INDEX_ENTRY_SIZE bytes each
+    private byte[] index = new byte[INDEX_ENTRY_SIZE * 64];
+    private int chunkCount = 0;
+
+    public RoundRecorder(File file, int roomId, String drawerId, String word, int width, int height, int brushWidth) throws IOException{
+        this.raster = new StrokeRaster(width, height, brushWidth);
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 8192));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(roomId);
+        out.writeLong(startMillis);
+        writeString(drawerId);
+        writeString(word);
+        out.writeShort(width);
+        out.writeShort(height);
+        offset = out.size();
+    }
+
+    public void addPoint(double x, double y) throws IOException{
+        lock.lock();
+        try{
+            if(isClosed) return;
+            int time = now();
+            cutChunkIfDue(time);
+            int qx = StrokeEncoder.quantizeX(x);
+            int qy = StrokeEncoder.quantizeY(y);
+            points.addPoint(qx, qy);
+            addTime(time);
+            if(isStrokeOpen){
+                raster.drawLine(lastX, lastY, qx, qy);
+            }else{
+                raster.drawPoint(qx, qy);
+            }
+            isStrokeOpen = true;
+            lastX = qx;
+            lastY = qy;
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    public void addSeparator() throws IOException{
+        lock.lock();
+        try{
+            // separators come on both mouse press and release, only one is needed between strokes
+            if(isClosed || !isStrokeOpen) return;
+            int time = now();
+            cutChunkIfDue(time);
+            points.addSeparator();
+            addTime(time);
+            isStrokeOpen = false;
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    // writes the last chunk and the index, the recording is complete afterwards
+    @Override
+    public void close() throws IOException{
+        lock.lock();
+        try{
+            if(isClosed) return;
+            isClosed = true;
+            try{
+                int endTime = now();
+                writeChunk();
+                long indexOffset = offset;
+                out.write(index, 0, chunkCount * INDEX_ENTRY_SIZE);
+                out.writeInt(chunkCount);
+                out.writeInt(endTime);
+                out.writeLong(indexOffset);
+                out.writeInt(MAGIC);
+            }finally{
+                out.close();
+            }
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    public int getChunkCount(){
+        lock.lock();
+        try{
+            return chunkCount;
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    public long getSize(){
+        lock.lock();
+        try{
+            return offset;
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    private int now(){
+        return (int) Math.min(Integer.MAX_VALUE, (System.nanoTime() - startNanos) / 1000000);
+    }
+
+    private void cutChunkIfDue(int time) throws IOException{
+        if(points.getCount() == 0){
+            chunkTime = time;
+            prevTime = time;
+            return;
+        }
+        if(points.getCount() < CHUNK_EVENTS && time - chunkTime < CHUNK_MILLIS) return;
+        writeChunk();
+        chunkTime = time;
+        prevTime = time;
+        if(eventsSinceKeyframe >= KEYFRAME_EVENTS){
+            keyframe = raster.compress();
+            eventsSinceKeyframe = 0;
+            // the stroke being drawn goes on from its last point
+            if(isStrokeOpen){
+                points.addPoint(lastX, lastY);
+                addTime(time);
+            }
+        }
+    }
+
+    private void writeChunk() throws IOException{
+        if(points.getCount() == 0) return;
+        int keyframeLength = keyframe == null ? 0 : keyframe.length;
+        int runLength = 2 + points.size();
+        int length = 4 + 4 + keyframeLength + 4 + timesSize + runLength;
+
+        ensureIndex();
+        int i = chunkCount * INDEX_ENTRY_SIZE;
+        MessageCodec.putInt(index, i, chunkTime);
+        MessageCodec.putLong(index, i + 4, offset);
+        index[i + 12] = (byte) (keyframe == null ? 0 : 1);
+        chunkCount++;
+
+        out.writeInt(length);
+        out.writeInt(chunkTime);
+        out.writeInt(keyframeLength);
+        if(keyframe != null) out.write(keyframe);
+        out.writeInt(timesSize);
+        out.write(times, 0, timesSize);
+        points.writeTo(out);
+        offset += 4 + length;
+
+        eventsSinceKeyframe += points.getCount();
+        points.reset();
+        timesSize = 0;
+        keyframe = null;
+    }
+
+    private void addTime(int time){
+        if(timesSize + 5 > times.length){
+            times = Arrays.copyOf(times, times.length * 2);
+        }
+        int v = time - prevTime;
+        while((v & ~0x7f) != 0){
+            times[timesSize++] = (byte) ((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        times[timesSize++] = (byte) v;
+        prevTime = time;
+    }
+
+    private void ensureIndex(){
+        if((chunkCount + 1) * INDEX_ENTRY_SIZE > index.length){
+            index = Arrays.copyOf(index, index.length * 2);
+        }
+    }
+
+    private void writeString(String s) throws IOException{
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,94 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Bytes per point of the stroke encodings, runnable without a benchmark harness. Strokes are random walks on the
+ * canvas the way a mouse samples them: each stroke starts at a random position and every sample moves a normally
+ * distributed few pixels. The same points are sized as the text requests the client used to send, one
+ * "CliNewPoint@x%y" string per point, as single CliNewPoint frames, and as the point runs of CliNewPoints, cut at
+ * MAX_BATCH_POINTS. Every run is decoded again and must give back the quantized points, otherwise the check fails
+ * and it exits with status 1.
+ *
+ *   StrokeBench [strokes] [pointsPerStroke] [seed]
+ */
+public class StrokeBench {
+    private static final Logger logger = LogManager.getLogger(StrokeBench.class.getName());
+
+    // standard deviation of a mouse move between two samples, in pixels
+    private static final double STEP = 4;
+
+    public static void main(String[] args){
+        int strokes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int pointsPerStroke = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        Random random = new Random(seed);
+        // a pair of Double.MAX_VALUE is a separator, as in encodePoints
+        int count = strokes * (pointsPerStroke + 1);
+        double[] coords = new double[count * 2];
+        int i = 0;
+        for(int stroke = 0; stroke < strokes; stroke++){
+            coords[i++] = Double.MAX_VALUE;
+            coords[i++] = Double.MAX_VALUE;
+            double x = random.nextDouble() * CanvasSpec.WIDTH;
+            double y = random.nextDouble() * CanvasSpec.HEIGHT;
+            for(int point = 0; point < pointsPerStroke; point++){
+                x = Math.min(Math.max(x + random.nextGaussian() * STEP, 0), CanvasSpec.WIDTH);
+                y = Math.min(Math.max(y + random.nextGaussian() * STEP, 0), CanvasSpec.HEIGHT);
+                coords[i++] = x;
+                coords[i++] = y;
+            }
+        }
+
+        long textBytes = 0;
+        long frameBytes = 0;
+        for(int point = 0; point < count; point++){
+            double x = coords[point * 2];
+            double y = coords[point * 2 + 1];
+            textBytes += ("CliNewPoint@" + x + "%" + y).getBytes(StandardCharsets.UTF_8).length;
+            frameBytes += MessageCodec.encodePoint(MessageCodec.CLI_NEW_POINT, 0, x, y).length;
+        }
+
+        long runBytes = 0;
+        long bodyBytes = 0;
+        int mismatches = 0;
+        StrokeDecoder decoder = new StrokeDecoder();
+        for(int first = 0; first < count; first += MessageCodec.MAX_BATCH_POINTS){
+            int batch = Math.min(MessageCodec.MAX_BATCH_POINTS, count - first);
+            double[] part = new double[batch * 2];
+            System.arraycopy(coords, first * 2, part, 0, part.length);
+            byte[] frame = MessageCodec.encodePoints(MessageCodec.CLI_NEW_POINTS, 0, part, batch);
+            runBytes += frame.length;
+            bodyBytes += frame.length - MessageCodec.HEADER_SIZE - 2;
+            decoder.reset(frame);
+            for(int point = 0; point < batch; point++){
+                double x = part[point * 2];
+                double y = part[point * 2 + 1];
+                if(!decoder.next()){
+                    mismatches += batch - point;
+                    break;
+                }
+                boolean isSeparator = x == Double.MAX_VALUE && y == Double.MAX_VALUE;
+                if(isSeparator != decoder.isSeparator() || !isSeparator
+                        && (decoder.x() != StrokeEncoder.quantizeX(x) || decoder.y() != StrokeEncoder.quantizeY(y))){
+                    mismatches++;
+                }
+            }
+        }
+
+        logger.info("{} points and separators: text {} bytes/point, CliNewPoint frames {} bytes/point, "
+                        + "CliNewPoints {} bytes/point ({} without frame headers), seed {}", count,
+                String.format("%.1f", textBytes / (double) count), String.format("%.1f", frameBytes / (double) count),
+                String.format("%.2f", runBytes / (double) count), String.format("%.2f", bodyBytes / (double) count),
+                seed);
+        if(mismatches > 0){
+            logger.error("failed: {} points decoded differently", mismatches);
+            System.exit(1);
+        }
+    }
+}
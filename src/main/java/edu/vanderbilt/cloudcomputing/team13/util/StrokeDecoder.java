@@ -0,0 +1,98 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+/**
+ * Streaming decoder for the point runs written by {@link StrokeEncoder}.
+ * It walks the frame in place and allocates nothing per point:
+ *
+ *   decoder.reset(frame);
+ *   while(decoder.next()){
+ *       if(decoder.isSeparator()) ... else use decoder.x(), decoder.y()
+ *   }
+ *
+ * A malformed run raises an IllegalArgumentException.
+ */
+public class StrokeDecoder {
+    private byte[] buf;
+    private int pos;
+    private int limit;
+    private int remaining;
+
+    private boolean isSeparator;
+    private int x;
+    private int y;
+
+    public StrokeDecoder reset(byte[] frame){
+        if(!MessageCodec.isPointsFrame(frame)){
+            throw new IllegalArgumentException("not a point run frame");
+        }
+        return reset(frame, MessageCodec.HEADER_SIZE, frame.length);
+    }
+
+    public StrokeDecoder reset(MessageView message){
+        return reset(message.frame());
+    }
+
+    // a run at the end of a message, at offset in its frame
+    public StrokeDecoder reset(MessageView message, int offset){
+        return reset(message.frame(), offset, message.length());
+    }
+
+    // a run embedded in a larger message: [count:short] then the points, between offset and limit
+    public StrokeDecoder reset(byte[] buf, int offset, int limit){
+        if(offset + 2 > limit){
+            throw new IllegalArgumentException("truncated point run");
+        }
+        this.buf = buf;
+        this.pos = offset + 2;
+        this.limit = limit;
+        this.remaining = ((buf[offset] & 0xff) << 8) | (buf[offset + 1] & 0xff);
+        x = 0;
+        y = 0;
+        return this;
+    }
+
+    public boolean next(){
+        if(remaining == 0) return false;
+        remaining--;
+        int first = readVarint();
+        if(first == 1){
+            isSeparator = true;
+            x = 0;
+            y = 0;
+        }else{
+            isSeparator = false;
+            x += unzigzag(first >>> 1);
+            y += unzigzag(readVarint());
+        }
+        return true;
+    }
+
+    public boolean isSeparator(){
+        return isSeparator;
+    }
+
+    public int x(){
+        return x;
+    }
+
+    public int y(){
+        return y;
+    }
+
+    static int unzigzag(int v){
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private int readVarint(){
+        int v = 0;
+        for(int shift = 0; shift < 35; shift += 7){
+            if(pos >= limit){
+                throw new IllegalArgumentException("truncated point run");
+            }
+            byte b = buf[pos++];
+            v |= (b & 0x7f) << shift;
+            if(b >= 0) return v;
+        }
+        throw new IllegalArgumentException("malformed varint in point run");
+    }
+}
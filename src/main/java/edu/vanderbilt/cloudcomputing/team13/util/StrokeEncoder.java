@@ -0,0 +1,130 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Streaming encoder for a run of stroke points, the body of CliNewPoints and ServerNewPoints.
+ *
+ * Points are quantized to whole pixels on the canvas, coordinates outside of it are clamped to its edge (see
+ * CanvasSpec), so a delta never exceeds the canvas size and its shifted zigzag fits an int. The first point after the start of the run or after a separator is sent
+ * relative to (0, 0), every following point as the delta to the previous one. Each point is two zigzag varints,
+ * the first one shifted left by one bit; a separator is the single varint 1. Normal mouse movement moves less than
+ * 16 pixels between samples, which makes most points two bytes.
+ */
+public class StrokeEncoder {
+    private byte[] buf;
+    private int size = 0;
+    // points and separators written so far
+    private int count = 0;
+    private int prevX = 0;
+    private int prevY = 0;
+
+    public StrokeEncoder(){
+        this(128);
+    }
+
+    public StrokeEncoder(int initialCapacity){
+        buf = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    public void addPoint(double x, double y){
+        int qx = quantizeX(x);
+        int qy = quantizeY(y);
+        ensure(10);
+        writeVarint(zigzag(qx - prevX) << 1);
+        writeVarint(zigzag(qy - prevY));
+        prevX = qx;
+        prevY = qy;
+        count++;
+    }
+
+    public void addSeparator(){
+        ensure(1);
+        writeVarint(1);
+        // the next stroke starts from an absolute position
+        prevX = 0;
+        prevY = 0;
+        count++;
+    }
+
+    public int getCount(){
+        return count;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    // copy the encoded points behind a [header][count:short] prefix
+    public byte[] toFrame(byte opcode, int roomId){
+        if(count > MessageCodec.MAX_BATCH_POINTS){
+            throw new IllegalStateException("too many points for one frame: " + count);
+        }
+        byte[] frame = new byte[MessageCodec.HEADER_SIZE + 2 + size];
+        MessageCodec.writeHeader(frame, roomId, opcode);
+        frame[MessageCodec.HEADER_SIZE] = (byte) (count >>> 8);
+        frame[MessageCodec.HEADER_SIZE + 1] = (byte) count;
+        System.arraycopy(buf, 0, frame, MessageCodec.HEADER_SIZE + 2, size);
+        return frame;
+    }
+
+    // the run as [count:short] then the encoded points, for runs embedded in a larger message
+    public void writeTo(MessageWriter writer){
+        if(count > MessageCodec.MAX_BATCH_POINTS){
+            throw new IllegalStateException("too many points for one run: " + count);
+        }
+        writer.writeShort(count);
+        writer.writeBytes(buf, 0, size);
+    }
+
+    // the same for runs stored in a file
+    public void writeTo(DataOutput out) throws IOException{
+        if(count > MessageCodec.MAX_BATCH_POINTS){
+            throw new IllegalStateException("too many points for one run: " + count);
+        }
+        out.writeShort(count);
+        out.write(buf, 0, size);
+    }
+
+    public void reset(){
+        size = 0;
+        count = 0;
+        prevX = 0;
+        prevY = 0;
+    }
+
+    static int quantizeX(double x){
+        return quantize(x, CanvasSpec.WIDTH);
+    }
+
+    static int quantizeY(double y){
+        return quantize(y, CanvasSpec.HEIGHT);
+    }
+
+    // NaN ends up at 0 like anything below the canvas
+    private static int quantize(double v, int max){
+        if(v >= max) return max;
+        if(v > 0) return (int) Math.round(v);
+        return 0;
+    }
+
+    static int zigzag(int v){
+        return (v << 1) ^ (v >> 31);
+    }
+
+    private void writeVarint(int v){
+        while((v & ~0x7f) != 0){
+            buf[size++] = (byte) ((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        buf[size++] = (byte) v;
+    }
+
+    private void ensure(int extra){
+        if(size + extra > buf.length){
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A one bit per pixel picture of the canvas, ink or no ink, in window coordinates (y pointing down).
+ * Strokes are stamped with a round brush. Rows are packed top to bottom, eight pixels per byte,
+ * most significant bit first, and travel deflated as the keyframe of a ServerSnapshot.
+ */
+public class StrokeRaster {
+    private final int width;
+    private final int height;
+    private final int rowBytes;
+    private final byte[] bits;
+    private final int brushRadius;
+    private boolean isEmpty = true;
+
+    public StrokeRaster(int width, int height, int brushWidth){
+        if(width <= 0 || height <= 0 || width > 0xffff || height > 0xffff){
+            throw new IllegalArgumentException("invalid raster size: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.rowBytes = (width + 7) / 8;
+        this.bits = new byte[rowBytes * height];
+        this.brushRadius = Math.max(0, brushWidth / 2);
+    }
+
+    private StrokeRaster(int width, int height, byte[] bits){
+        this.width = width;
+        this.height = height;
+        this.rowBytes = (width + 7) / 8;
+        this.bits = bits;
+        this.brushRadius = 0;
+        this.isEmpty = false;
+    }
+
+    public void drawPoint(int x, int y){
+        int r2 = brushRadius * brushRadius;
+        for(int dy = -brushRadius; dy <= brushRadius; dy++){
+            for(int dx = -brushRadius; dx <= brushRadius; dx++){
+                if(dx * dx + dy * dy <= r2) set(x + dx, y + dy);
+            }
+        }
+    }
+
+    // stamp the brush every pixel along the line
+    public void drawLine(int x0, int y0, int x1, int y1){
+        int steps = Math.max(Math.abs(x1 - x0), Math.abs(y1 - y0));
+        for(int i = 0; i <= steps; i++){
+            double t = steps == 0 ? 0 : (double) i / steps;
+            drawPoint((int) Math.round(x0 + (x1 - x0) * t), (int) Math.round(y0 + (y1 - y0) * t));
+        }
+    }
+
+    public boolean isSet(int x, int y){
+        if(x < 0 || y < 0 || x >= width || y >= height) return false;
+        return (bits[y * rowBytes + (x >> 3)] & (0x80 >>> (x & 7))) != 0;
+    }
+
+    public void clear(){
+        Arrays.fill(bits, (byte) 0);
+        isEmpty = true;
+    }
+
+    // takes the pixels of a raster of the same size, a decompressed keyframe for example
+    public void copyFrom(StrokeRaster other){
+        if(other.width != width || other.height != height){
+            throw new IllegalArgumentException("raster size " + other.width + "x" + other.height + " instead of " + width + "x" + height);
+        }
+        System.arraycopy(other.bits, 0, bits, 0, bits.length);
+        isEmpty = other.isEmpty;
+    }
+
+    public boolean isEmpty(){
+        return isEmpty;
+    }
+
+    public int getWidth(){
+        return width;
+    }
+
+    public int getHeight(){
+        return height;
+    }
+
+    // the packed rows, not a copy
+    public byte[] getBits(){
+        return bits;
+    }
+
+    public byte[] compress(){
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(bits);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bits.length / 16);
+        byte[] chunk = new byte[4096];
+        while(!deflater.finished()){
+            int n = deflater.deflate(chunk);
+            out.write(chunk, 0, n);
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    public static StrokeRaster decompress(byte[] data, int width, int height){
+        byte[] bits = new byte[(width + 7) / 8 * height];
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+        try{
+            int n = 0;
+            while(n < bits.length && !inflater.finished()){
+                int read = inflater.inflate(bits, n, bits.length - n);
+                if(read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += read;
+            }
+            if(n != bits.length){
+                throw new IllegalArgumentException("truncated keyframe, " + n + " of " + bits.length + " bytes");
+            }
+        }catch (DataFormatException e){
+            throw new IllegalArgumentException("malformed keyframe", e);
+        }finally{
+            inflater.end();
+        }
+        return new StrokeRaster(width, height, bits);
+    }
+
+    private void set(int x, int y){
+        if(x < 0 || y < 0 || x >= width || y >= height) return;
+        bits[y * rowBytes + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+        isEmpty = false;
+    }
+}
@@ -0,0 +1,176 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Draws the bitmap font of GraphicUtils from a texture atlas. Every glyph is plotted into the atlas once,
+ * and the quads of a label are built once per (string, position) and kept in a small LRU cache,
+ * so a label costs one draw call per frame instead of one glBegin/glEnd per pixel. The colour is a
+ * tint on the white glyphs, so one cached label serves every colour.
+ *
+ * Only used from the thread owning the GL context, the atlas is uploaded on first use.
+ */
+public class TextRenderer {
+    // atlas cells, ascii only, 16 x 8 cells of CELL x CELL pixels
+    private static final int CELL = 12;
+    private static final int COLUMNS = 16;
+    private static final int GLYPHS = 128;
+    private static final int ATLAS_WIDTH = 256;
+    private static final int ATLAS_HEIGHT = 128;
+    // pen position inside a cell, a plotted point reaches one pixel left of and below the pen
+    private static final int PAD = 1;
+    private static final int MAX_CACHED_LABELS = 256;
+
+    private static TextRenderer instance = null;
+
+    private int texture = 0;
+    private final int[] advance = new int[GLYPHS];
+    private final boolean[] hasInk = new boolean[GLYPHS];
+
+    private final Map<Label, Mesh> labels = new LinkedHashMap<Label, Mesh>(64, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Label, Mesh> eldest){
+            return size() > MAX_CACHED_LABELS;
+        }
+    };
+
+    public static TextRenderer getInstance(){
+        if(instance == null){
+            instance = new TextRenderer();
+        }
+        return instance;
+    }
+
+    private TextRenderer(){
+    }
+
+    public void drawString(String s, int x, int y, float r, float g, float b){
+        if(texture == 0) buildAtlas();
+        Label key = new Label(s, x, y);
+        Mesh mesh = labels.get(key);
+        if(mesh == null){
+            mesh = buildMesh(s, x, y);
+            labels.put(key, mesh);
+        }
+        if(mesh.vertexCount == 0) return;
+
+        glEnable(GL_TEXTURE_2D);
+        glEnable(GL_BLEND);
+        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        glBindTexture(GL_TEXTURE_2D, texture);
+        glColor3f(r, g, b);
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+        glVertexPointer(2, GL_FLOAT, 0, mesh.vertices);
+        glTexCoordPointer(2, GL_FLOAT, 0, mesh.texCoords);
+        glDrawArrays(GL_QUADS, 0, mesh.vertexCount);
+        glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+        glDisableClientState(GL_VERTEX_ARRAY);
+        glBindTexture(GL_TEXTURE_2D, 0);
+        glDisable(GL_BLEND);
+        glDisable(GL_TEXTURE_2D);
+    }
+
+    public void delete(){
+        if(texture != 0) glDeleteTextures(texture);
+        texture = 0;
+        labels.clear();
+    }
+
+    // plot every glyph into its cell, white where there is ink and transparent elsewhere
+    private void buildAtlas(){
+        final ByteBuffer pixels = BufferUtils.createByteBuffer(ATLAS_WIDTH * ATLAS_HEIGHT * 4);
+        for(int c = 0; c < GLYPHS; c++){
+            final int cellX = (c % COLUMNS) * CELL;
+            final int cellY = (c / COLUMNS) * CELL;
+            final int glyph = c;
+            advance[c] = GraphicUtils.plotGlyph((char) c, PAD, PAD, (px, py) -> {
+                hasInk[glyph] = true;
+                // the 2x2 square centered on px, py covers pixels px - 1 and px
+                for(int dy = -1; dy <= 0; dy++){
+                    for(int dx = -1; dx <= 0; dx++){
+                        int index = ((cellY + py + dy) * ATLAS_WIDTH + cellX + px + dx) * 4;
+                        pixels.put(index, (byte) 0xff);
+                        pixels.put(index + 1, (byte) 0xff);
+                        pixels.put(index + 2, (byte) 0xff);
+                        pixels.put(index + 3, (byte) 0xff);
+                    }
+                }
+            });
+        }
+
+        texture = glGenTextures();
+        glBindTexture(GL_TEXTURE_2D, texture);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, ATLAS_WIDTH, ATLAS_HEIGHT, 0, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+        glBindTexture(GL_TEXTURE_2D, 0);
+    }
+
+    // one textured quad per inked glyph, placed by the same layout as the pixel font
+    private Mesh buildMesh(String s, int x, int y){
+        final FloatBuffer vertices = BufferUtils.createFloatBuffer(s.length() * 8);
+        final FloatBuffer texCoords = BufferUtils.createFloatBuffer(s.length() * 8);
+        GraphicUtils.layoutString(s, x, y, (c, penX, penY) -> {
+            if(c >= GLYPHS) return 2;
+            if(hasInk[c]){
+                float x0 = penX - PAD;
+                float y0 = penY - PAD;
+                float s0 = (float) ((c % COLUMNS) * CELL) / ATLAS_WIDTH;
+                float t0 = (float) ((c / COLUMNS) * CELL) / ATLAS_HEIGHT;
+                float s1 = s0 + (float) CELL / ATLAS_WIDTH;
+                float t1 = t0 + (float) CELL / ATLAS_HEIGHT;
+                vertices.put(x0).put(y0).put(x0 + CELL).put(y0).put(x0 + CELL).put(y0 + CELL).put(x0).put(y0 + CELL);
+                texCoords.put(s0).put(t0).put(s1).put(t0).put(s1).put(t1).put(s0).put(t1);
+            }
+            return advance[c];
+        });
+        int vertexCount = vertices.position() / 2;
+        vertices.flip();
+        texCoords.flip();
+        return new Mesh(vertices, texCoords, vertexCount);
+    }
+
+    private static class Label{
+        final String text;
+        final int x;
+        final int y;
+
+        Label(String text, int x, int y){
+            this.text = text;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof Label)) return false;
+            Label other = (Label) o;
+            return x == other.x && y == other.y && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode(){
+            return (text.hashCode() * 31 + x) * 31 + y;
+        }
+    }
+
+    private static class Mesh{
+        final FloatBuffer vertices;
+        final FloatBuffer texCoords;
+        final int vertexCount;
+
+        Mesh(FloatBuffer vertices, FloatBuffer texCoords, int vertexCount){
+            this.vertices = vertices;
+            this.texCoords = texCoords;
+            this.vertexCount = vertexCount;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How message handlers are run. PLATFORM is a fixed pool of platform threads, VIRTUAL starts a virtual thread
+ * per handler, so a handler blocked on the request window or on a file write holds no platform thread.
+ *
+ * Virtual threads exist from Java 21 on and are looked up reflectively, the code still builds for Java 8;
+ * on an older runtime VIRTUAL falls back to the platform pool. A virtual thread that blocks while holding a
+ * monitor pins its carrier thread, so code run by handlers guards blocking work with a ReentrantLock instead of
+ * synchronized.
+ */
+public enum ThreadMode {
+    PLATFORM,
+    VIRTUAL;
+
+    private static final Logger logger = LogManager.getLogger(ThreadMode.class.getName());
+
+    // Executors.newThreadPerTaskExecutor and Thread.ofVirtual().name(prefix, start).factory(), null before Java 21
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+
+    static {
+        Method perTask = null;
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try{
+            perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+        }catch (ReflectiveOperationException e){
+            perTask = null;
+        }
+        NEW_THREAD_PER_TASK_EXECUTOR = perTask;
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_FACTORY = factory;
+    }
+
+    public static boolean isVirtualSupported(){
+        return NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    // "platform" or "virtual"
+    public static ThreadMode parse(String name){
+        return valueOf(name.trim().toUpperCase());
+    }
+
+    // threads are named name-0, name-1, ...; platformThreads is the pool size in PLATFORM mode
+    public ExecutorService newExecutor(String name, int platformThreads){
+        if(this == VIRTUAL){
+            if(isVirtualSupported()){
+                try{
+                    Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name + "-", 0L);
+                    ThreadFactory factory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+                    return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+                }catch (ReflectiveOperationException e){
+                    logger.warn("cannot create virtual threads, using {} platform threads", platformThreads, e);
+                }
+            }else{
+                logger.warn("virtual threads need Java 21, using {} platform threads", platformThreads);
+            }
+        }
+        AtomicInteger threadNum = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(platformThreads, r -> new Thread(r, name + "-" + threadNum.getAndIncrement()));
+    }
+}
@@ -0,0 +1,92 @@
+package edu.vanderbilt.cloudcomputing.team13.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Throughput and latency of the handler executors of both thread modes, runnable without a benchmark harness.
+ * Handlers arrive as a burst, as a busy stroke does; each one blocks for blockMicros, the way a handler waits for a
+ * place in the request window or for a recording write, and every tenth one does so holding a shared ReentrantLock
+ * like the recorder's. Each mode reports handlers per second and the median and p99 time from submit to the end of
+ * the handler. VIRTUAL needs Java 21; on an older runtime it is skipped with a warning, its fallback would measure
+ * the same pool again. A handler that does not finish within a minute exits with status 1.
+ *
+ *   ThreadModeBench [handlers] [blockMicros] [platformThreads]
+ */
+public class ThreadModeBench {
+    private static final Logger logger = LogManager.getLogger(ThreadModeBench.class.getName());
+
+    private final ReentrantLock recorderLock = new ReentrantLock();
+
+    private void handle(int index, long blockNanos){
+        if(index % 10 == 0){
+            recorderLock.lock();
+            try{
+                LockSupport.parkNanos(blockNanos / 10);
+            }finally{
+                recorderLock.unlock();
+            }
+        }else{
+            LockSupport.parkNanos(blockNanos);
+        }
+    }
+
+    // false if the handlers did not all finish
+    private boolean run(ThreadMode mode, int handlers, long blockNanos, int platformThreads) throws InterruptedException{
+        ExecutorService executor = mode.newExecutor("bench-" + mode.name().toLowerCase(), platformThreads);
+        long[] latencies = new long[handlers];
+        CountDownLatch done = new CountDownLatch(handlers);
+        AtomicInteger failed = new AtomicInteger(0);
+        long begin = System.nanoTime();
+        for(int i = 0; i < handlers; i++){
+            final int index = i;
+            final long submitted = System.nanoTime();
+            executor.execute(() -> {
+                try{
+                    handle(index, blockNanos);
+                }catch (RuntimeException e){
+                    failed.incrementAndGet();
+                }
+                latencies[index] = System.nanoTime() - submitted;
+                done.countDown();
+            });
+        }
+        boolean isDone = done.await(60, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        if(!isDone || failed.get() > 0){
+            logger.error("failed: {} of {} handlers did not finish in {} mode", done.getCount() + failed.get(), handlers,
+                    mode);
+            return false;
+        }
+        Arrays.sort(latencies);
+        logger.info("{}: {} handlers/s, latency median {} ms, p99 {} ms", mode,
+                Math.round(handlers / (elapsed / 1e9)), String.format("%.1f", latencies[handlers / 2] / 1e6),
+                String.format("%.1f", latencies[handlers - handlers / 100 - 1] / 1e6));
+        return true;
+    }
+
+    public static void main(String[] args) throws InterruptedException{
+        int handlers = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        long blockMicros = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        // the client's pool
+        int platformThreads = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        ThreadModeBench bench = new ThreadModeBench();
+        boolean isPassed = bench.run(ThreadMode.PLATFORM, handlers, blockMicros * 1000, platformThreads);
+        if(ThreadMode.isVirtualSupported()){
+            isPassed &= bench.run(ThreadMode.VIRTUAL, handlers, blockMicros * 1000, platformThreads);
+        }else{
+            logger.warn("virtual threads need Java 21, only the platform pool was measured");
+        }
+        if(!isPassed) System.exit(1);
+    }
+}